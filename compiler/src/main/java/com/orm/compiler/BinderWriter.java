@@ -0,0 +1,97 @@
+package com.orm.compiler;
+
+import java.util.List;
+
+/**
+ * Writes the source of the binder of one entity class.
+ */
+final class BinderWriter {
+    private final String packageName;
+    private final String binderName;
+    private final String entityName;
+    private final List<BoundColumn> columns;
+
+    BinderWriter(String packageName, String binderName, String entityName, List<BoundColumn> columns) {
+        this.packageName = packageName;
+        this.binderName = binderName;
+        this.entityName = entityName;
+        this.columns = columns;
+    }
+
+    String write() {
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import android.content.ContentValues;\n")
+                .append("import android.database.Cursor;\n")
+                .append("import android.database.sqlite.SQLiteStatement;\n\n")
+                .append("import com.orm.binder.BinderSupport;\n")
+                .append("import com.orm.binder.EntityBinder;\n\n")
+                .append("/**\n")
+                .append(" * Generated by the Sugar annotation processor, do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(binderName)
+                .append(" implements EntityBinder<").append(entityName).append("> {\n");
+
+        sb.append("    private static final String[] COLUMNS = {");
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i > 0 ? ", " : "").append('"').append(columns.get(i).columnName).append('"');
+        }
+        sb.append("};\n\n");
+
+        sb.append("    @Override\n")
+                .append("    public String[] getColumnNames() {\n")
+                .append("        return COLUMNS;\n")
+                .append("    }\n\n");
+
+        sb.append("    @Override\n")
+                .append("    public void bindToStatement(SQLiteStatement statement, int[] positions, ")
+                .append(entityName).append(" entity) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            BoundColumn column = columns.get(i);
+            String position = "positions[" + i + "]";
+            sb.append("        if (").append(position).append(" > 0) {\n")
+                    .append("            ").append(column.typeName).append(" value = ").append(column.readField).append(";\n")
+                    .append("            ").append(column.kind.bindCode(position, column.primitive)).append("\n")
+                    .append("        }\n");
+        }
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n")
+                .append("    public void readFromCursor(Cursor cursor, int[] columnIndexes, ")
+                .append(entityName).append(" entity) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            BoundColumn column = columns.get(i);
+            String index = "columnIndexes[" + i + "]";
+            sb.append("        if (").append(index).append(" >= 0 && !cursor.isNull(").append(index).append(")) {\n")
+                    .append("            ").append(column.typeName).append(" value = ")
+                    .append(column.kind.readExpression(index, column.typeName)).append(";\n");
+            if (column.kind == ColumnKind.ENUM) {
+                sb.append("            if (value != null) {\n")
+                        .append("                ").append(column.writeField).append("\n")
+                        .append("            }\n");
+            } else {
+                sb.append("            ").append(column.writeField).append("\n");
+            }
+            sb.append("        }\n");
+        }
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n")
+                .append("    public void putValues(ContentValues values, boolean[] columns, ")
+                .append(entityName).append(" entity) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            BoundColumn column = columns.get(i);
+            sb.append("        if (columns[").append(i).append("]) {\n")
+                    .append("            ").append(column.typeName).append(" value = ").append(column.readField).append(";\n")
+                    .append("            values.put(\"").append(column.columnName).append("\", ")
+                    .append(column.kind.valueExpression()).append(");\n")
+                    .append("        }\n");
+        }
+        sb.append("    }\n");
+
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
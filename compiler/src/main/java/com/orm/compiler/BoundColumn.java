@@ -0,0 +1,27 @@
+package com.orm.compiler;
+
+/**
+ * A column read and written by a generated binder, along with the code accessing its field.
+ */
+final class BoundColumn {
+    final String columnName;
+    final ColumnKind kind;
+    final String typeName;
+    final boolean primitive;
+    final String readField;
+    final String writeField;
+
+    /**
+     * @param readField an expression returning the field value of {@code entity}
+     * @param writeField a statement setting the field of {@code entity} to {@code value}
+     */
+    BoundColumn(String columnName, ColumnKind kind, String typeName, boolean primitive,
+                String readField, String writeField) {
+        this.columnName = columnName;
+        this.kind = kind;
+        this.typeName = typeName;
+        this.primitive = primitive;
+        this.readField = readField;
+        this.writeField = writeField;
+    }
+}
@@ -0,0 +1,184 @@
+package com.orm.compiler;
+
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.element.ElementKind;
+
+/**
+ * The column types a generated binder knows how to read and write. They follow the conversions of
+ * {@code ReflectionUtil.bindFieldValueToStatement}, {@code ReflectionUtil.addFieldValueToColumn}
+ * and {@code ReflectionUtil.setFieldValueFromCursor}.
+ */
+enum ColumnKind {
+    SHORT("getShort", "bindLong"),
+    INTEGER("getInt", "bindLong"),
+    LONG("getLong", "bindLong"),
+    FLOAT("getFloat", "bindDouble"),
+    DOUBLE("getDouble", "bindDouble"),
+    BOOLEAN(null, null),
+    STRING(null, "bindString"),
+    BIG_DECIMAL(null, null),
+    TIMESTAMP(null, null),
+    DATE(null, null),
+    CALENDAR(null, null),
+    BYTES(null, "bindBlob"),
+    ENUM(null, null);
+
+    private final String cursorGetter;
+    private final String bindMethod;
+
+    ColumnKind(String cursorGetter, String bindMethod) {
+        this.cursorGetter = cursorGetter;
+        this.bindMethod = bindMethod;
+    }
+
+    /**
+     * @return the kind of the given field type, or null if binders don't support it
+     */
+    static ColumnKind of(TypeMirror type) {
+        switch (type.getKind()) {
+            case SHORT:
+                return SHORT;
+            case INT:
+                return INTEGER;
+            case LONG:
+                return LONG;
+            case FLOAT:
+                return FLOAT;
+            case DOUBLE:
+                return DOUBLE;
+            case BOOLEAN:
+                return BOOLEAN;
+            case ARRAY:
+                TypeMirror componentType = ((ArrayType) type).getComponentType();
+                return componentType.getKind() == TypeKind.BYTE ? BYTES : null;
+            case DECLARED:
+                if (((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+                    return ENUM;
+                }
+                return ofDeclared(type.toString());
+            default:
+                return null;
+        }
+    }
+
+    private static ColumnKind ofDeclared(String typeName) {
+        switch (typeName) {
+            case "java.lang.Short":
+                return SHORT;
+            case "java.lang.Integer":
+                return INTEGER;
+            case "java.lang.Long":
+                return LONG;
+            case "java.lang.Float":
+                return FLOAT;
+            case "java.lang.Double":
+                return DOUBLE;
+            case "java.lang.Boolean":
+                return BOOLEAN;
+            case "java.lang.String":
+                return STRING;
+            case "java.math.BigDecimal":
+                return BIG_DECIMAL;
+            case "java.sql.Timestamp":
+                return TIMESTAMP;
+            case "java.util.Date":
+                return DATE;
+            case "java.util.Calendar":
+                return CALENDAR;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param position the expression of the bind position
+     * @param primitive whether the field type is primitive and can't be null
+     * @return the statements binding the field value held by the {@code value} local variable
+     */
+    String bindCode(String position, boolean primitive) {
+        String value = "value";
+        String bindNull = "statement.bindNull(" + position + ");";
+        switch (this) {
+            case BOOLEAN:
+                return bind("bindLong", position, value + " ? 1 : 0", primitive ? null : bindNull);
+            case BIG_DECIMAL:
+                return bind("bindString", position, value + ".toString()", bindNull);
+            case TIMESTAMP:
+            case DATE:
+                return bind("bindLong", position, value + ".getTime()", bindNull);
+            case CALENDAR:
+                return bind("bindLong", position, value + ".getTimeInMillis()", bindNull);
+            case BYTES:
+                return bind("bindBlob", position, value, "statement.bindBlob(" + position + ", \"\".getBytes());");
+            case ENUM:
+                return bind("bindString", position, value + ".name()", bindNull);
+            default:
+                return bind(bindMethod, position, value, primitive ? null : bindNull);
+        }
+    }
+
+    private static String bind(String method, String position, String value, String whenNull) {
+        String bind = "statement." + method + "(" + position + ", " + value + ");";
+        if (whenNull == null) {
+            return bind;
+        }
+        return "if (value == null) {\n"
+                + "                " + whenNull + "\n"
+                + "            } else {\n"
+                + "                " + bind + "\n"
+                + "            }";
+    }
+
+    /**
+     * @return an expression converting the field value held by the {@code value} local variable to
+     *         the value put in a ContentValues
+     */
+    String valueExpression() {
+        switch (this) {
+            case BIG_DECIMAL:
+                return "value == null ? null : value.toString()";
+            case TIMESTAMP:
+            case DATE:
+                return "value == null ? null : (Long) value.getTime()";
+            case CALENDAR:
+                return "value == null ? null : (Long) value.getTimeInMillis()";
+            case BYTES:
+                return "value == null ? \"\".getBytes() : value";
+            case ENUM:
+                return "value == null ? null : value.name()";
+            default:
+                return "value";
+        }
+    }
+
+    /**
+     * @param index the expression of the cursor column index
+     * @param typeName the canonical name of the field type
+     * @return an expression reading the column from the cursor, converted to the field type
+     */
+    String readExpression(String index, String typeName) {
+        switch (this) {
+            case BOOLEAN:
+                return "cursor.getString(" + index + ").equals(\"1\")";
+            case STRING:
+                return "BinderSupport.nullIfNullString(cursor.getString(" + index + "))";
+            case BIG_DECIMAL:
+                return "BinderSupport.toBigDecimal(cursor.getString(" + index + "))";
+            case TIMESTAMP:
+                return "new java.sql.Timestamp(cursor.getLong(" + index + "))";
+            case DATE:
+                return "new java.util.Date(cursor.getLong(" + index + "))";
+            case CALENDAR:
+                return "BinderSupport.toCalendar(cursor.getLong(" + index + "))";
+            case BYTES:
+                return "BinderSupport.emptyIfNull(cursor.getBlob(" + index + "))";
+            case ENUM:
+                return "BinderSupport.toEnum(" + typeName + ".class, cursor.getString(" + index + "))";
+            default:
+                return "cursor." + cursorGetter + "(" + index + ")";
+        }
+    }
+}
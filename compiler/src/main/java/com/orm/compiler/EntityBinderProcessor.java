@@ -0,0 +1,258 @@
+package com.orm.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates an {@code EntityBinder} for every {@code @Table} annotated class and every
+ * {@code SugarRecord} subclass compiled with it, so that their plain columns are read and written
+ * without reflection.
+ *
+ * A field is handled by the binder when it is reachable from the entity package, either directly
+ * or through a getter and a setter. Any other field is left to the reflection based code.
+ */
+@SupportedAnnotationTypes("*")
+public class EntityBinderProcessor extends AbstractProcessor {
+    static final String BINDER_SUFFIX = "_SugarBinder";
+
+    private static final String SUGAR_RECORD = "com.orm.SugarRecord";
+    private static final String TABLE = "com.orm.annotation.Table";
+    private static final String COLUMN = "com.orm.annotation.Column";
+    private static final String IGNORE = "com.orm.annotation.Ignore";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            processType(type);
+        }
+        return false;
+    }
+
+    private void processType(TypeElement type) {
+        if (isEntity(type) && isAccessible(type)) {
+            generateBinder(type);
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (nested.getModifiers().contains(Modifier.STATIC)) {
+                processType(nested);
+            }
+        }
+    }
+
+    private boolean isEntity(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS ||
+                type.getModifiers().contains(Modifier.ABSTRACT) ||
+                !type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        if (hasAnnotation(type, TABLE)) {
+            return true;
+        }
+
+        TypeMirror superclass = type.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (superElement.getQualifiedName().contentEquals(SUGAR_RECORD)) {
+                return true;
+            }
+            superclass = superElement.getSuperclass();
+        }
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element.getKind().isClass()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void generateBinder(TypeElement type) {
+        String packageName = getPackage(type).getQualifiedName().toString();
+        List<BoundColumn> columns = new ArrayList<>();
+        Set<String> columnNames = new HashSet<>();
+
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                BoundColumn column = toBoundColumn(type, packageName, field);
+                if (column != null && columnNames.add(column.columnName)) {
+                    columns.add(column);
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String binderName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + BINDER_SUFFIX;
+        String qualifiedBinderName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+        if (!generated.add(qualifiedBinderName)) {
+            return;
+        }
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedBinderName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(new BinderWriter(packageName, binderName, type.getQualifiedName().toString(), columns).write());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Couldn't write binder " + qualifiedBinderName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private BoundColumn toBoundColumn(TypeElement type, String packageName, VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) ||
+                modifiers.contains(Modifier.TRANSIENT) ||
+                modifiers.contains(Modifier.FINAL) ||
+                hasAnnotation(field, IGNORE)) {
+            return null;
+        }
+
+        TypeMirror fieldType = field.asType();
+        ColumnKind kind = ColumnKind.of(fieldType);
+        if (kind == null) {
+            return null;
+        }
+        if (kind == ColumnKind.ENUM && !isAccessible((TypeElement) ((DeclaredType) fieldType).asElement())) {
+            return null;
+        }
+
+        String fieldName = field.getSimpleName().toString();
+        String columnName = getColumnName(field);
+        boolean primitive = fieldType.getKind().isPrimitive();
+        String typeName = fieldType.toString();
+
+        if (isReachable(field, packageName)) {
+            return new BoundColumn(columnName, kind, typeName, primitive,
+                    "entity." + fieldName, "entity." + fieldName + " = value;");
+        }
+
+        String getter = findGetter(type, packageName, fieldName, fieldType);
+        String setter = findSetter(type, packageName, fieldName, fieldType);
+        if (getter != null && setter != null) {
+            return new BoundColumn(columnName, kind, typeName, primitive,
+                    "entity." + getter + "()", "entity." + setter + "(value);");
+        }
+        return null;
+    }
+
+    private String getColumnName(VariableElement field) {
+        AnnotationMirror column = getAnnotation(field, COLUMN);
+        if (column != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : column.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("name")) {
+                    return String.valueOf(entry.getValue().getValue());
+                }
+            }
+        }
+        return NamingConventions.toSQLNameDefault(field.getSimpleName().toString());
+    }
+
+    private String findGetter(TypeElement type, String packageName, String fieldName, TypeMirror fieldType) {
+        String capitalized = NamingConventions.capitalize(fieldName);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            String name = method.getSimpleName().toString();
+            boolean getterName = name.equals("get" + capitalized) ||
+                    (fieldType.getKind() == TypeKind.BOOLEAN && name.equals("is" + capitalized));
+            if (getterName && method.getParameters().isEmpty() &&
+                    !method.getModifiers().contains(Modifier.STATIC) &&
+                    processingEnv.getTypeUtils().isSameType(method.getReturnType(), fieldType) &&
+                    isReachable(method, packageName)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(TypeElement type, String packageName, String fieldName, TypeMirror fieldType) {
+        String name = "set" + NamingConventions.capitalize(fieldName);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(name) &&
+                    method.getParameters().size() == 1 &&
+                    !method.getModifiers().contains(Modifier.STATIC) &&
+                    processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), fieldType) &&
+                    isReachable(method, packageName)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the generated binder, living in the entity package, can access the member
+     */
+    private boolean isReachable(Element member, String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        TypeElement owner = (TypeElement) member.getEnclosingElement();
+        if (getPackage(owner).getQualifiedName().contentEquals(packageName)) {
+            return true;
+        }
+        return modifiers.contains(Modifier.PUBLIC) && owner.getModifiers().contains(Modifier.PUBLIC);
+    }
+
+    private PackageElement getPackage(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        return getAnnotation(element, annotationName) != null;
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+}
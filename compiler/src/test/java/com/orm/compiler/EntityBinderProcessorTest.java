@@ -0,0 +1,174 @@
+package com.orm.compiler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class EntityBinderProcessorTest {
+
+    private static final String TABLE = "package com.orm.annotation;\n"
+            + "public @interface Table { String name() default \"\"; }\n";
+    private static final String COLUMN = "package com.orm.annotation;\n"
+            + "public @interface Column { String name(); boolean unique() default false; boolean notNull() default false; }\n";
+    private static final String IGNORE = "package com.orm.annotation;\n"
+            + "public @interface Ignore { }\n";
+    private static final String SUGAR_RECORD = "package com.orm;\n"
+            + "public class SugarRecord {\n"
+            + "    private Long id;\n"
+            + "    public Long getId() { return id; }\n"
+            + "    public void setId(Long id) { this.id = id; }\n"
+            + "}\n";
+    private static final String CURSOR = "package android.database;\n"
+            + "public interface Cursor {\n"
+            + "    boolean isNull(int i); String getString(int i); long getLong(int i); int getInt(int i);\n"
+            + "    short getShort(int i); float getFloat(int i); double getDouble(int i); byte[] getBlob(int i);\n"
+            + "}\n";
+    private static final String STATEMENT = "package android.database.sqlite;\n"
+            + "public class SQLiteStatement {\n"
+            + "    public void bindNull(int i) { } public void bindLong(int i, long v) { }\n"
+            + "    public void bindDouble(int i, double v) { } public void bindString(int i, String v) { }\n"
+            + "    public void bindBlob(int i, byte[] v) { }\n"
+            + "}\n";
+    private static final String ENTITY_BINDER = "package com.orm.binder;\n"
+            + "public interface EntityBinder<T> {\n"
+            + "    String[] getColumnNames();\n"
+            + "    void bindToStatement(android.database.sqlite.SQLiteStatement s, int[] p, T e);\n"
+            + "    void readFromCursor(android.database.Cursor c, int[] i, T e);\n"
+            + "    void putValues(android.content.ContentValues v, boolean[] c, T e);\n"
+            + "}\n";
+    private static final String CONTENT_VALUES = "package android.content;\n"
+            + "public class ContentValues {\n"
+            + "    public void put(String k, String v) { } public void put(String k, Integer v) { }\n"
+            + "    public void put(String k, Long v) { } public void put(String k, Boolean v) { }\n"
+            + "    public void put(String k, byte[] v) { }\n"
+            + "}\n";
+    private static final String BINDER_SUPPORT = "package com.orm.binder;\n"
+            + "public final class BinderSupport {\n"
+            + "    public static String nullIfNullString(String v) { return v; }\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSugarRecordBinder() throws IOException {
+        String binder = generate("Book",
+                "package com.example;\n"
+                        + "import com.orm.SugarRecord;\n"
+                        + "public class Book extends SugarRecord {\n"
+                        + "    String title;\n"
+                        + "    int pages;\n"
+                        + "}\n");
+
+        assertTrue(binder.contains("public final class Book_SugarBinder implements EntityBinder<com.example.Book>"));
+        assertTrue(binder.contains("private static final String[] COLUMNS = {\"TITLE\", \"PAGES\", \"ID\"};"));
+        assertTrue(binder.contains("java.lang.String value = entity.title;"));
+        assertTrue(binder.contains("statement.bindLong(positions[1], value);"));
+        assertTrue(binder.contains("java.lang.Long value = entity.getId();"));
+        assertTrue(binder.contains("entity.setId(value);"));
+        assertTrue(binder.contains("values.put(\"PAGES\", value);"));
+    }
+
+    @Test
+    public void testAnnotatedBinder() throws IOException {
+        String binder = generate("Author",
+                "package com.example;\n"
+                        + "import com.orm.annotation.Column;\n"
+                        + "import com.orm.annotation.Ignore;\n"
+                        + "import com.orm.annotation.Table;\n"
+                        + "@Table\n"
+                        + "public class Author {\n"
+                        + "    private Long id;\n"
+                        + "    @Column(name = \"full_name\") String fullName;\n"
+                        + "    @Ignore String cache;\n"
+                        + "    transient String transientField;\n"
+                        + "    static String staticField;\n"
+                        + "    private boolean active;\n"
+                        + "    public boolean isActive() { return active; }\n"
+                        + "    public void setActive(boolean active) { this.active = active; }\n"
+                        + "}\n");
+
+        assertTrue(binder.contains("private static final String[] COLUMNS = {\"full_name\", \"ACTIVE\"};"));
+        assertTrue(binder.contains("boolean value = entity.isActive();"));
+        assertTrue(binder.contains("statement.bindLong(positions[1], value ? 1 : 0);"));
+        assertTrue(binder.contains("values.put(\"ACTIVE\", value);"));
+        assertFalse(binder.contains("CACHE"));
+    }
+
+    @Test
+    public void testNoBinderWithoutReachableColumns() throws IOException {
+        File generated = run("Secret", "package com.example;\n"
+                + "import com.orm.annotation.Table;\n"
+                + "@Table\n"
+                + "public class Secret {\n"
+                + "    private String value;\n"
+                + "}\n");
+
+        assertFalse(new File(generated, "com/example/Secret_SugarBinder.java").exists());
+    }
+
+    @Test
+    public void testToSQLNameDefault() {
+        assertEquals("TEST_LOWER_CASE", NamingConventions.toSQLNameDefault("testLowerCase"));
+        assertEquals("ANDROID_ID", NamingConventions.toSQLNameDefault("AndroidID"));
+        assertEquals("_id", NamingConventions.toSQLNameDefault("_id"));
+    }
+
+    private String generate(String className, String source) throws IOException {
+        File binder = new File(run(className, source), "com/example/" + className + "_SugarBinder.java");
+        assertTrue(binder.exists());
+        return new String(Files.readAllBytes(binder.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private File run(String className, String source) throws IOException {
+        File sources = folder.newFolder();
+        File generated = folder.newFolder();
+
+        List<File> files = new ArrayList<>();
+        files.add(write(sources, "com/orm/annotation/Table.java", TABLE));
+        files.add(write(sources, "com/orm/annotation/Column.java", COLUMN));
+        files.add(write(sources, "com/orm/annotation/Ignore.java", IGNORE));
+        files.add(write(sources, "com/orm/SugarRecord.java", SUGAR_RECORD));
+        files.add(write(sources, "android/database/Cursor.java", CURSOR));
+        files.add(write(sources, "android/database/sqlite/SQLiteStatement.java", STATEMENT));
+        files.add(write(sources, "android/content/ContentValues.java", CONTENT_VALUES));
+        files.add(write(sources, "com/orm/binder/EntityBinder.java", ENTITY_BINDER));
+        files.add(write(sources, "com/orm/binder/BinderSupport.java", BINDER_SUPPORT));
+        files.add(write(sources, "com/example/" + className + ".java", source));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                Arrays.asList("-proc:only", "-s", generated.getPath()), null,
+                fileManager.getJavaFileObjectsFromFiles(files));
+        task.setProcessors(Collections.singletonList(new EntityBinderProcessor()));
+
+        assertTrue(task.call());
+        fileManager.close();
+        return generated;
+    }
+
+    private static File write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
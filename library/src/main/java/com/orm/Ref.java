@@ -0,0 +1,86 @@
+package com.orm;
+
+import com.orm.util.EntityDescriptor;
+import com.orm.util.ReflectionUtil;
+
+import java.lang.reflect.Field;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * A lazily resolved reference to another entity. A field declared as Ref&lt;T&gt; is stored in an
+ * INTEGER column holding the id of the entity, like a field of type T, but reading a row only
+ * reads that id: the entity itself is found the first time {@link #get()} is called.
+ */
+public final class Ref<T> {
+    private final Class<T> type;
+    private final Long id;
+    private T entity;
+    private boolean loaded;
+
+    private Ref(Class<T> type, Long id, T entity, boolean loaded) {
+        this.type = type;
+        this.id = id;
+        this.entity = entity;
+        this.loaded = loaded;
+    }
+
+    /**
+     * @return a reference to the entity of the given type and id, found on the first {@link #get()}
+     */
+    public static <T> Ref<T> to(Class<T> type, long id) {
+        return new Ref<>(type, id, null, false);
+    }
+
+    /**
+     * @return a reference to the entity, which must be saved before the entity referencing it
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Ref<T> to(T entity) {
+        return new Ref<>((Class<T>) entity.getClass(), null, entity, true);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the referenced entity, or null if it is not saved yet
+     */
+    public Long getId() {
+        if (id != null || entity == null) {
+            return id;
+        }
+        if (entity instanceof SugarRecord) {
+            return ((SugarRecord) entity).getId();
+        }
+        Field idField = EntityDescriptor.of(type).getIdField();
+        if (idField != null) {
+            return ReflectionUtil.getIdValue(idField, entity);
+        }
+        return getSugarContext().getEntitiesMap().get(entity);
+    }
+
+    /**
+     * @return the referenced entity, found by id on the first call, or null if it doesn't exist
+     */
+    public T get() {
+        if (!loaded) {
+            entity = SugarRecord.findById(type, id);
+            loaded = true;
+        }
+        return entity;
+    }
+
+    /**
+     * @return true once the referenced entity is found or was given
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public String toString() {
+        return "Ref(" + type.getSimpleName() + "#" + getId() + ")";
+    }
+}
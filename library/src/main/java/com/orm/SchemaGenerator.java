@@ -5,23 +5,20 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
-import com.orm.annotation.Column;
 import com.orm.annotation.MultiUnique;
 import com.orm.annotation.NotNull;
-import com.orm.annotation.Unique;
 import com.orm.helper.ManifestHelper;
+import com.orm.util.EntityDescriptor;
 import com.orm.util.KeyWordUtil;
 import com.orm.util.MigrationFileParser;
 import com.orm.helper.NamingHelper;
 import com.orm.util.NumberComparator;
 import com.orm.util.QueryBuilder;
-import com.orm.util.ReflectionUtil;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -63,7 +60,7 @@ public class SchemaGenerator {
         String sql = "select count(*) from sqlite_master where type='table' and name='%s';";
 
         for (Class<?> domain : domainClasses) {
-            String tableName = NamingHelper.toTableName(domain);
+            String tableName = EntityDescriptor.of(domain).getTableName();
             Cursor c = sqLiteDatabase.rawQuery(String.format(sql, tableName), null);
             if (c.moveToFirst() && c.getInt(0) == 0) {
                 createTable(domain, sqLiteDatabase);
@@ -91,7 +88,7 @@ public class SchemaGenerator {
     public void deleteTables(SQLiteDatabase sqLiteDatabase) {
         Set<Class<?>> tables = getDomainClasses();
         for (Class<?> table : tables) {
-            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + NamingHelper.toTableName(table));
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + EntityDescriptor.of(table).getTableName());
         }
     }
 
@@ -160,24 +157,19 @@ public class SchemaGenerator {
     }
 
     private void addColumns(Class<?> table, SQLiteDatabase sqLiteDatabase) {
-        List<Field> fields = ReflectionUtil.getTableFields(table);
-        String tableName = NamingHelper.toTableName(table);
+        EntityDescriptor descriptor = EntityDescriptor.of(table);
+        String tableName = descriptor.getTableName();
         ArrayList<String> presentColumns = getColumnNames(sqLiteDatabase, tableName);
         ArrayList<String> alterCommands = new ArrayList<>();
 
-        for (Field column : fields) {
-            String columnName = NamingHelper.toColumnName(column);
+        for (EntityDescriptor.Property column : descriptor.getProperties()) {
+            String columnName = column.getColumnName();
             String columnType = QueryBuilder.getColumnType(column.getType());
 
-            if (column.isAnnotationPresent(Column.class)) {
-                Column columnAnnotation = column.getAnnotation(Column.class);
-                columnName = columnAnnotation.name();
-            }
-
             if (!presentColumns.contains(columnName)) {
                 StringBuilder sb = new StringBuilder("ALTER TABLE ");
                 sb.append(tableName).append(" ADD COLUMN ").append(columnName).append(" ").append(columnType);
-                if (column.isAnnotationPresent(NotNull.class)) {
+                if (column.getField().isAnnotationPresent(NotNull.class)) {
                     if (columnType.endsWith(" NULL")) {
                         sb.delete(sb.length() - 5, sb.length());
                     }
@@ -204,8 +196,8 @@ public class SchemaGenerator {
         if(ManifestHelper.isDebugEnabled()) {
             Log.i(SUGAR, "Create table if not exists");
         }
-        List<Field> fields = ReflectionUtil.getTableFields(table);
-        String tableName = NamingHelper.toTableName(table);
+        EntityDescriptor descriptor = EntityDescriptor.of(table);
+        String tableName = descriptor.getTableName();
 
         if(KeyWordUtil.isKeyword(tableName)) {
             if(ManifestHelper.isDebugEnabled()) {
@@ -216,45 +208,25 @@ public class SchemaGenerator {
         StringBuilder sb = new StringBuilder("CREATE TABLE IF NOT EXISTS ");
         sb.append(tableName).append(" ( ID INTEGER PRIMARY KEY AUTOINCREMENT ");
 
-        for (Field column : fields) {
-            String columnName = NamingHelper.toColumnName(column);
+        for (EntityDescriptor.Property column : descriptor.getProperties()) {
             String columnType = QueryBuilder.getColumnType(column.getType());
 
             if (columnType != null) {
-                if (columnName.equalsIgnoreCase("Id")) {
+                if (column.isIdColumn()) {
                     continue;
                 }
 
-                if (column.isAnnotationPresent(Column.class)) {
-                    Column columnAnnotation = column.getAnnotation(Column.class);
-                    columnName = columnAnnotation.name();
-
-                    sb.append(", ").append(columnName).append(" ").append(columnType);
+                sb.append(", ").append(column.getColumnName()).append(" ").append(columnType);
 
-                    if (columnAnnotation.notNull()) {
-                        if (columnType.endsWith(NULL)) {
-                            sb.delete(sb.length() - 5, sb.length());
-                        }
-                        sb.append(NOT_NULL);
-                    }
-
-                    if (columnAnnotation.unique()) {
-                        sb.append(UNIQUE);
-                    }
-
-                } else {
-                    sb.append(", ").append(columnName).append(" ").append(columnType);
-
-                    if (column.isAnnotationPresent(NotNull.class)) {
-                        if (columnType.endsWith(NULL)) {
-                            sb.delete(sb.length() - 5, sb.length());
-                        }
-                        sb.append(NOT_NULL);
+                if (column.isNotNull()) {
+                    if (columnType.endsWith(NULL)) {
+                        sb.delete(sb.length() - 5, sb.length());
                     }
+                    sb.append(NOT_NULL);
+                }
 
-                    if (column.isAnnotationPresent(Unique.class)) {
-                        sb.append(UNIQUE);
-                    }
+                if (column.isUnique()) {
+                    sb.append(UNIQUE);
                 }
             }
         }
@@ -274,7 +246,7 @@ public class SchemaGenerator {
                 }
             }
 
-            sb.append(") ON CONFLICT REPLACE");
+            sb.append(")");
         }
 
         sb.append(" ) ");
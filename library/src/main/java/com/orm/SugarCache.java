@@ -0,0 +1,342 @@
+package com.orm;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import com.orm.annotation.Cacheable;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Process-wide cache of the rows of the {@link Cacheable} entities, by class and id. Finding such
+ * an entity by id, or through a relation, inflates a new instance from the cached row instead of
+ * querying SQLite; so no instance is shared between callers or threads.
+ *
+ * The cache holds raw rows, not entities: every hit is inflated again from a copy of the row.
+ *
+ * Rows are cached as they are read, outside of transactions. Every write of an entity through
+ * SugarRecord evicts its row, deleteAll evicts the rows of the class and executeQuery evicts every
+ * row. Rows changed by other means must be evicted with {@link #evict(Class, long)},
+ * {@link #evictAll(Class)} or {@link #clear()}.
+ *
+ * An eviction within a transaction happens before the write is committed, when other threads may
+ * still read the former row. The rows of the class are then not cached again, by any thread, until
+ * the transaction is over: SugarRecord reports the end of its own transactions, and the end of
+ * other transactions is noticed on the next use of the cache by the thread which ran them, or
+ * reported through {@link #onTransactionEnded()}.
+ */
+public final class SugarCache {
+    private static final Region NOT_CACHEABLE = new Region(0, false);
+    private static final ConcurrentMap<Class<?>, Region> regions = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Set<Region>> transactionWrites = new ThreadLocal<Set<Region>>() {
+        @Override
+        protected Set<Region> initialValue() {
+            return new HashSet<>();
+        }
+    };
+
+    /**
+     * The cached rows of one class, least recently used first.
+     */
+    private static final class Region {
+        private final boolean softReferences;
+        private final LinkedHashMap<Long, Object> rows;
+        private String[] columnNames;
+        private long generation;
+        private int pendingWrites;
+
+        Region(final int maxSize, boolean softReferences) {
+            this.softReferences = softReferences;
+            this.rows = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized Object[] get(long id) {
+            Object row = rows.get(id);
+            if (row instanceof SoftReference) {
+                row = ((SoftReference<?>) row).get();
+                if (row == null) {
+                    rows.remove(id);
+                }
+            }
+            return (Object[]) row;
+        }
+
+        synchronized void put(long id, String[] names, Object[] values, long stamp) {
+            if (stamp != generation || pendingWrites > 0) {
+                // The rows were evicted after they were read, or may be written by a transaction
+                return;
+            }
+            if (columnNames != names) {
+                if (columnNames == null || !Arrays.equals(columnNames, names)) {
+                    // The table changed, the rows cached before don't match the cursors anymore
+                    rows.clear();
+                }
+                columnNames = names;
+            }
+            rows.put(id, softReferences ? new SoftReference<>(values) : values);
+        }
+
+        synchronized Cursor getRows(Collection<Long> ids, List<Long> misses) {
+            MatrixCursor cursor = null;
+            for (Long id : ids) {
+                Object[] values = get(id);
+                if (values == null) {
+                    misses.add(id);
+                    continue;
+                }
+                if (cursor == null) {
+                    cursor = new MatrixCursor(columnNames, ids.size());
+                }
+                cursor.addRow(copyOf(values));
+            }
+            return cursor;
+        }
+
+        synchronized void remove(long id) {
+            rows.remove(id);
+            generation++;
+        }
+
+        synchronized void clear() {
+            rows.clear();
+            generation++;
+        }
+
+        synchronized long getGeneration() {
+            return generation;
+        }
+
+        synchronized void addPendingWrite() {
+            pendingWrites++;
+        }
+
+        synchronized void removePendingWrite() {
+            pendingWrites--;
+        }
+
+        synchronized boolean hasPendingWrites() {
+            return pendingWrites > 0;
+        }
+
+        synchronized int size() {
+            return rows.size();
+        }
+    }
+
+    /**
+     * Caches the rows read from a cursor over full rows of a {@link Cacheable} class.
+     */
+    public static final class RowWriter {
+        private final Region region;
+        private final long stamp;
+        private final String[] columnNames;
+        private final int idIndex;
+
+        private RowWriter(Region region, Cursor cursor) {
+            this.region = region;
+            this.stamp = region.getGeneration();
+            this.columnNames = cursor.getColumnNames();
+            this.idIndex = cursor.getColumnIndex("ID");
+        }
+
+        /**
+         * Caches the current row of the cursor.
+         */
+        public void write(Cursor cursor) {
+            Object[] values = readRow(cursor, columnNames.length);
+            region.put(cursor.getLong(idIndex), columnNames, values, stamp);
+        }
+    }
+
+    //Prevent instantiation
+    private SugarCache() { }
+
+    /**
+     * @return true if the class is annotated with {@link Cacheable}
+     */
+    public static boolean isCacheable(Class<?> type) {
+        return getRegion(type) != NOT_CACHEABLE;
+    }
+
+    /**
+     * @return a writer caching the rows read from the cursor, or null if the rows of the class are
+     *         not cached or the cursor is read within a transaction, which could be rolled back
+     */
+    public static RowWriter newRowWriter(Class<?> type, Cursor cursor) {
+        onTransactionEnded();
+        Region region = getRegion(type);
+        if (region == NOT_CACHEABLE || cursor.getColumnIndex("ID") < 0 || inTransaction() ||
+                region.hasPendingWrites()) {
+            return null;
+        }
+        return new RowWriter(region, cursor);
+    }
+
+    /**
+     * @param misses the list to add the ids whose row isn't cached to
+     * @return a cursor over the cached rows of the given ids, or null if none is cached
+     */
+    public static Cursor getRows(Class<?> type, Collection<Long> ids, List<Long> misses) {
+        onTransactionEnded();
+        Region region = getRegion(type);
+        if (region == NOT_CACHEABLE) {
+            misses.addAll(ids);
+            return null;
+        }
+
+        return region.getRows(ids, misses);
+    }
+
+    /**
+     * Evicts the row of the given class and id.
+     */
+    public static void evict(Class<?> type, long id) {
+        Region region = getRegion(type);
+        if (region != NOT_CACHEABLE) {
+            region.remove(id);
+            onWrite(region);
+        }
+    }
+
+    /**
+     * Evicts every row of the class.
+     */
+    public static void evictAll(Class<?> type) {
+        Region region = getRegion(type);
+        if (region != NOT_CACHEABLE) {
+            region.clear();
+            onWrite(region);
+        }
+    }
+
+    /**
+     * Evicts every row.
+     */
+    public static void clear() {
+        for (Region region : regions.values()) {
+            if (region != NOT_CACHEABLE) {
+                region.clear();
+                onWrite(region);
+            }
+        }
+    }
+
+    /**
+     * Drops every row and pending write, for a new database.
+     */
+    static void reset() {
+        regions.clear();
+        transactionWrites.remove();
+    }
+
+    /**
+     * Lets the rows written in the transaction of this thread be cached again once it is over.
+     * SugarRecord calls it after its own transactions; callers running their own may call it after
+     * endTransaction instead of waiting for the next use of the cache by the thread.
+     */
+    public static void onTransactionEnded() {
+        Set<Region> written = transactionWrites.get();
+        if (written.isEmpty() || inTransaction()) {
+            return;
+        }
+        for (Region region : written) {
+            region.removePendingWrite();
+        }
+        written.clear();
+    }
+
+    /**
+     * Keeps the rows of the region from being cached until the transaction of this thread, if
+     * any, is over, since other threads still read the rows as they were before it.
+     */
+    private static void onWrite(Region region) {
+        if (inTransaction()) {
+            if (transactionWrites.get().add(region)) {
+                region.addPendingWrite();
+            }
+        } else {
+            onTransactionEnded();
+        }
+    }
+
+    private static boolean inTransaction() {
+        return getSugarContext().getSugarDb().getDB().inTransaction();
+    }
+
+    /**
+     * @return the number of rows of the class in the cache
+     */
+    public static int size(Class<?> type) {
+        return getRegion(type).size();
+    }
+
+    private static Region getRegion(Class<?> type) {
+        Region region = regions.get(type);
+        if (region == null) {
+            Cacheable cacheable = type.getAnnotation(Cacheable.class);
+            Region created = cacheable != null
+                    ? new Region(cacheable.maxSize(), cacheable.softReferences())
+                    : NOT_CACHEABLE;
+            region = regions.putIfAbsent(type, created);
+            if (region == null) {
+                region = created;
+            }
+        }
+        return region;
+    }
+
+    /**
+     * @return the values of the current row of the cursor
+     */
+    static Object[] readRow(Cursor cursor, int columnCount) {
+        Object[] values = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            switch (cursor.getType(i)) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    values[i] = cursor.getLong(i);
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    values[i] = cursor.getDouble(i);
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    values[i] = cursor.getString(i);
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    values[i] = cursor.getBlob(i);
+                    break;
+                default:
+                    values[i] = null;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Blobs are copied, so that the inflated entities don't share arrays with the cache.
+     */
+    static Object[] copyOf(Object[] values) {
+        Object[] copy = values.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof byte[]) {
+                copy[i] = ((byte[]) copy[i]).clone();
+            }
+        }
+        return copy;
+    }
+}
@@ -1,8 +1,11 @@
 package com.orm;
 
+import android.content.ContentValues;
 import android.content.Context;
 
 import com.orm.util.ContextUtil;
+import com.orm.util.StatementCache;
+import com.orm.util.WeakIdentitySet;
 
 import java.util.Collections;
 import java.util.Map;
@@ -14,10 +17,14 @@ public class SugarContext {
     private static SugarContext instance = null;
     private SugarDb sugarDb;
     private Map<Object, Long> entitiesMap;
+    private Map<Object, ContentValues> snapshots;
+    private WeakIdentitySet stubs;
 
     private SugarContext() {
         this.sugarDb = SugarDb.getInstance();
         this.entitiesMap = Collections.synchronizedMap(new WeakHashMap<Object, Long>());
+        this.snapshots = Collections.synchronizedMap(new WeakHashMap<Object, ContentValues>());
+        this.stubs = new WeakIdentitySet();
     }
     
     public static SugarContext getSugarContext() {
@@ -29,6 +36,8 @@ public class SugarContext {
 
     public static void init(Context context) {
         ContextUtil.init(context);
+        SugarCache.reset();
+        SugarQueryCache.clear();
         instance = new SugarContext();
         dbConfiguration = null;
     }
@@ -54,6 +63,9 @@ public class SugarContext {
      * Robolectric Android mock.
      */
     private void doTerminate() {
+        StatementCache.clearCache();
+        SugarCache.reset();
+        SugarQueryCache.clear();
         if (this.sugarDb != null) {
             this.sugarDb.getDB().close();
         }
@@ -70,4 +82,19 @@ public class SugarContext {
     public Map<Object, Long> getEntitiesMap() {
         return entitiesMap;
     }
+
+    /**
+     * @return the column values of the loaded entities as last read from or written to the database
+     */
+    public Map<Object, ContentValues> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * @return the entities set to relations past the fetch depth of a query, which hold only their
+     *         id and must not be written back
+     */
+    public WeakIdentitySet getStubs() {
+        return stubs;
+    }
 }
@@ -0,0 +1,196 @@
+package com.orm;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.orm.helper.ManifestHelper;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.ReflectionUtil;
+import com.orm.util.WeakIdentityMap;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Optional id strategy assigning ids to entities in memory, before they are inserted, so that
+ * whole graphs can be built on any thread and then written in a single batched pass.
+ *
+ * Ids are reserved by blocks from the sqlite_sequence table, which AUTOINCREMENT keys are drawn
+ * from, so they never collide with the ids SQLite assigns to rows saved without an id. Reserved
+ * ids which are never used are simply skipped.
+ *
+ * A block reserved while the calling thread is in a transaction is only reserved once that
+ * transaction commits. If it rolls back instead, the block is discarded on the next call of that
+ * thread outside of a transaction, and the ids it already gave are reserved again with the next
+ * block.
+ */
+public final class SugarIdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private static final Map<String, Block> blocks = new HashMap<>();
+    private static final WeakIdentityMap<Long> assignedIds = new WeakIdentityMap<>();
+    private static SQLiteDatabase database;
+    private static int blockSize = DEFAULT_BLOCK_SIZE;
+
+    /**
+     * The ids of a table reserved by this process, next to last.
+     */
+    private static final class Block {
+        private long next;
+        private final long last;
+        private final Thread reservedBy;
+        private boolean committed;
+
+        Block(long first, long last, Thread reservedBy, boolean committed) {
+            this.next = first;
+            this.last = last;
+            this.reservedBy = reservedBy;
+            this.committed = committed;
+        }
+    }
+
+    //Prevent instantiation
+    private SugarIdAllocator() { }
+
+    /**
+     * Sets the number of ids reserved at once for an entity type.
+     */
+    public static synchronized void setBlockSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive, was " + size);
+        }
+        blockSize = size;
+    }
+
+    /**
+     * @return an id no row of the type has or will be given by SQLite
+     */
+    public static synchronized long nextId(Class<?> type) {
+        SQLiteDatabase db = getSugarContext().getSugarDb().getDB();
+        if (database != db) {
+            blocks.clear();
+            database = db;
+        }
+
+        String tableName = EntityDescriptor.of(type).getTableName();
+        Block block = blocks.get(tableName);
+        long floor = 0L;
+        if (block != null && !block.committed) {
+            if (queryLong(db, "SELECT SEQ FROM SQLITE_SEQUENCE WHERE NAME = ?", tableName) >= block.last) {
+                block.committed = true;
+            } else if (block.reservedBy == Thread.currentThread() && !db.inTransaction()) {
+                // The transaction the block was reserved in rolled back, so did its reservation.
+                // Other threads can't tell a rollback from a transaction still running
+                if (ManifestHelper.isDebugEnabled()) {
+                    Log.i(SugarRecord.SUGAR, "Reservation of ids up to " + block.last + " of " + tableName + " rolled back");
+                }
+                floor = block.last;
+                block = null;
+            }
+        }
+        if (block == null || block.next > block.last) {
+            block = reserveBlock(db, tableName, Math.max(floor, block != null ? block.last : 0L));
+            blocks.put(tableName, block);
+        }
+        return block.next++;
+    }
+
+    /**
+     * Gives the object a new id if it doesn't have one yet. It is then inserted as a new row by
+     * save, saveInTx and saveGraphInTx.
+     *
+     * @return the object
+     * @throws IllegalArgumentException if the object isn't an entity with an id field
+     */
+    public static <T> T assignId(T object) {
+        if (object instanceof SugarRecord) {
+            SugarRecord record = (SugarRecord) object;
+            if (record.getId() == null) {
+                long id = nextId(object.getClass());
+                record.setId(id);
+                assignedIds.put(object, id);
+            }
+            return object;
+        }
+
+        Field idField = getIdField(object.getClass());
+        if (idField == null) {
+            throw new IllegalArgumentException(object.getClass().getSimpleName() + " has no id field");
+        }
+        if (ReflectionUtil.getIdValue(idField, object) == null) {
+            long id = nextId(object.getClass());
+            ReflectionUtil.setFieldValueForId(object, id);
+            assignedIds.put(object, id);
+        }
+        return object;
+    }
+
+    public static void assignIds(Collection<?> objects) {
+        for (Object object : objects) {
+            assignId(object);
+        }
+    }
+
+    /**
+     * @return true if the object still has the id it was assigned and hasn't been saved since
+     */
+    static boolean isUnsaved(Object object, Long id) {
+        return id != null && !assignedIds.isEmpty() && id.equals(assignedIds.get(object));
+    }
+
+    static void markSaved(Object object) {
+        if (!assignedIds.isEmpty()) {
+            assignedIds.remove(object);
+        }
+    }
+
+    private static Field getIdField(Class<?> type) {
+        return SugarRecord.isSugarEntity(type) ? EntityDescriptor.of(type).getIdField() : null;
+    }
+
+    /**
+     * Moves the AUTOINCREMENT sequence of the table past a new block of ids.
+     *
+     * @param floor the last id this process already gave, which the block starts after
+     * @return the block, committed unless reserved in a transaction of the calling thread
+     */
+    private static Block reserveBlock(SQLiteDatabase db, String tableName, long floor) {
+        boolean committed = !db.inTransaction();
+        db.beginTransaction();
+        try {
+            long last = Math.max(floor, Math.max(
+                    queryLong(db, "SELECT SEQ FROM SQLITE_SEQUENCE WHERE NAME = ?", tableName),
+                    queryLong(db, "SELECT MAX(ID) FROM " + tableName)));
+
+            ContentValues values = new ContentValues(2);
+            values.put("SEQ", last + blockSize);
+            if (db.update("SQLITE_SEQUENCE", values, "NAME = ?", new String[] { tableName }) == 0) {
+                values.put("NAME", tableName);
+                db.insertOrThrow("SQLITE_SEQUENCE", null, values);
+            }
+            db.setTransactionSuccessful();
+
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SugarRecord.SUGAR, "Reserved ids " + (last + 1) + " to " + (last + blockSize) + " of " + tableName);
+            }
+            return new Block(last + 1, last + blockSize, Thread.currentThread(), committed);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static long queryLong(SQLiteDatabase db, String sql, String... args) {
+        Cursor cursor = db.rawQuery(sql, args);
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : 0L;
+        } finally {
+            cursor.close();
+        }
+    }
+}
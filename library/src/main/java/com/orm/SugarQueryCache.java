@@ -0,0 +1,321 @@
+package com.orm;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+
+import com.orm.util.EntityDescriptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Process-wide cache of the results of the queries which opt in, such as
+ * {@code Select.from(Note.class).cached().list()}, keyed by entity and query. The rows of a cached
+ * list are kept, and inflated into new instances on every hit.
+ *
+ * A result is dropped as soon as the table of its entity is written through SugarRecord, or any
+ * table by executeQuery, and results read within a transaction are not kept. Queries which read
+ * other tables too, through subqueries, must not be cached unless those tables don't change.
+ *
+ * The cache holds at most {@link #getMaxBytes()} of results, as estimated from their values, the
+ * least recently used being evicted first.
+ */
+public final class SugarQueryCache {
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final Map<List<?>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, Long> tableGenerations = new HashMap<>();
+    private static final Map<String, Integer> tableEntries = new HashMap<>();
+    private static long generation;
+    private static long clearedGeneration;
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long bytes;
+    private static long hitCount;
+    private static long missCount;
+    private static long evictionCount;
+
+    private static final class Entry {
+        private final String tableName;
+        private final long stamp;
+        private final String[] columnNames;
+        private final List<Object[]> rows;
+        private final Long value;
+        private final long bytes;
+
+        Entry(String tableName, long stamp, String[] columnNames, List<Object[]> rows, Long value, long bytes) {
+            this.tableName = tableName;
+            this.stamp = stamp;
+            this.columnNames = columnNames;
+            this.rows = rows;
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Records the rows read through it, and caches them once the last one is read.
+     */
+    private static final class RecordingCursor extends CursorWrapper {
+        private final List<?> key;
+        private final String tableName;
+        private final long stamp;
+        private final int columnCount;
+        private final long maxRowBytes;
+        private List<Object[]> rows = new ArrayList<>();
+        private long rowBytes;
+        private boolean complete;
+
+        RecordingCursor(Cursor cursor, List<?> key, String tableName, long stamp, long maxRowBytes) {
+            super(cursor);
+            this.key = key;
+            this.tableName = tableName;
+            this.stamp = stamp;
+            this.columnCount = cursor.getColumnCount();
+            this.maxRowBytes = maxRowBytes;
+        }
+
+        @Override
+        public boolean moveToNext() {
+            if (!super.moveToNext()) {
+                complete = true;
+                return false;
+            }
+            if (rows != null) {
+                Object[] values = SugarCache.readRow(this, columnCount);
+                rowBytes += sizeOf(values);
+                if (rowBytes > maxRowBytes) {
+                    // Too large to be cached, so the rows read so far are dropped and no more are kept
+                    rows = null;
+                } else {
+                    rows.add(values);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (complete && rows != null && !isClosed()) {
+                put(key, new Entry(tableName, stamp, getColumnNames(), rows, null, rowBytes));
+            }
+            super.close();
+        }
+    }
+
+    //Prevent instantiation
+    private SugarQueryCache() { }
+
+    /**
+     * @param maxBytes the estimated size of the results to keep at most, 0 disabling the cache
+     */
+    public static synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative, was " + maxBytes);
+        }
+        SugarQueryCache.maxBytes = maxBytes;
+        evict();
+    }
+
+    public static synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @param query the query and its arguments
+     * @return a cursor over the cached rows of the query, or null if they are not cached
+     */
+    public static synchronized Cursor getRows(Class<?> type, List<?> query) {
+        Entry entry = get(keyOf(type, query));
+        if (entry == null || entry.rows == null) {
+            return null;
+        }
+        MatrixCursor cursor = new MatrixCursor(entry.columnNames, entry.rows.size());
+        for (Object[] row : entry.rows) {
+            cursor.addRow(SugarCache.copyOf(row));
+        }
+        return cursor;
+    }
+
+    /**
+     * @return a cursor caching the rows of the query once all of them are read and it is closed,
+     *         unless they exceed the size of the cache, or the cursor itself if the query is run
+     *         within a transaction
+     */
+    public static synchronized Cursor recordRows(Class<?> type, List<?> query, Cursor cursor) {
+        if (maxBytes == 0 || getSugarContext().getSugarDb().getDB().inTransaction()) {
+            return cursor;
+        }
+        return new RecordingCursor(cursor, keyOf(type, query), EntityDescriptor.of(type).getTableName(), generation, maxBytes);
+    }
+
+    /**
+     * @return the cached value of the query, or null if it is not cached
+     */
+    public static synchronized Long getLong(Class<?> type, List<?> query) {
+        Entry entry = get(keyOf(type, query));
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * @return the stamp to put a value read from now on with
+     */
+    public static synchronized long getStamp() {
+        return generation;
+    }
+
+    /**
+     * Caches the value of the query, read after the given stamp was taken.
+     */
+    public static synchronized void putLong(Class<?> type, List<?> query, long value, long stamp) {
+        if (maxBytes == 0 || getSugarContext().getSugarDb().getDB().inTransaction()) {
+            return;
+        }
+        put(keyOf(type, query), new Entry(EntityDescriptor.of(type).getTableName(), stamp, null, null, value, 24));
+    }
+
+    /**
+     * Drops the results of the queries on the table of the class.
+     */
+    public static synchronized void invalidate(Class<?> type) {
+        String tableName = EntityDescriptor.of(type).getTableName();
+        tableGenerations.put(tableName, ++generation);
+        if (tableEntries.containsKey(tableName)) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.tableName.equals(tableName)) {
+                    iterator.remove();
+                    removed(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every result.
+     */
+    public static synchronized void clear() {
+        clearedGeneration = ++generation;
+        entries.clear();
+        tableEntries.clear();
+        bytes = 0;
+    }
+
+    public static synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public static synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of results evicted to stay within {@link #getMaxBytes()}
+     */
+    public static synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public static synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the estimated size of the cached results
+     */
+    public static synchronized long getSize() {
+        return bytes;
+    }
+
+    public static synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    private static List<?> keyOf(Class<?> type, List<?> query) {
+        return Arrays.asList(type, query);
+    }
+
+    private static Entry get(List<?> key) {
+        Entry entry = entries.get(key);
+        if (entry != null && !isValid(entry)) {
+            entries.remove(key);
+            removed(entry);
+            entry = null;
+        }
+        if (entry != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * @return false if the table of the entry was written, or the cache cleared, since it was read
+     */
+    private static boolean isValid(Entry entry) {
+        Long tableGeneration = tableGenerations.get(entry.tableName);
+        return entry.stamp >= clearedGeneration && (tableGeneration == null || entry.stamp >= tableGeneration);
+    }
+
+    private static synchronized void put(List<?> key, Entry entry) {
+        if (!isValid(entry) || entry.bytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            removed(previous);
+        }
+        bytes += entry.bytes;
+        Integer count = tableEntries.get(entry.tableName);
+        tableEntries.put(entry.tableName, count == null ? 1 : count + 1);
+        evict();
+    }
+
+    private static void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            removed(entry);
+            evictionCount++;
+        }
+    }
+
+    private static void removed(Entry entry) {
+        bytes -= entry.bytes;
+        Integer count = tableEntries.get(entry.tableName);
+        if (count != null && count > 1) {
+            tableEntries.put(entry.tableName, count - 1);
+        } else {
+            tableEntries.remove(entry.tableName);
+        }
+    }
+
+    /**
+     * @return a rough estimate of the memory used by the values of a row
+     */
+    private static long sizeOf(Object[] values) {
+        long size = 16 + 4 * values.length;
+        for (Object value : values) {
+            if (value instanceof String) {
+                size += 40 + 2 * ((String) value).length();
+            } else if (value instanceof byte[]) {
+                size += 16 + ((byte[]) value).length;
+            } else if (value != null) {
+                size += 16;
+            }
+        }
+        return size;
+    }
+}
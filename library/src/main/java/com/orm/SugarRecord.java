@@ -4,18 +4,32 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteQueryBuilder;
 import android.database.sqlite.SQLiteStatement;
 import android.text.TextUtils;
 import android.util.Log;
+import com.orm.annotation.MultiUnique;
+import com.orm.annotation.OneToMany;
 import com.orm.annotation.Table;
 import com.orm.annotation.Unique;
 import com.orm.helper.ManifestHelper;
 import com.orm.helper.NamingHelper;
 import com.orm.inflater.EntityInflater;
+import com.orm.inflater.FetchPlan;
+import com.orm.inflater.RelationLoader;
+import com.orm.util.BindingCursorFactory;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.EntityGraph;
+import com.orm.util.EntitySnapshots;
+import com.orm.util.EntityStatements;
+import com.orm.util.IdentityMap;
 import com.orm.util.QueryBuilder;
 import com.orm.util.ReflectionUtil;
+import com.orm.util.SQLiteVersion;
+import com.orm.util.StatementCache;
 import com.orm.util.SugarCursor;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.*;
 
@@ -34,13 +48,70 @@ public class SugarRecord {
         return deleteAll(type, null);
     }
 
-    public static <T> int deleteAll(Class<T> type, String whereClause, String... whereArgs) {
-        return getSugarDataBase().delete(NamingHelper.toTableName(type), whereClause, whereArgs);
+    /**
+     * @param whereArgs the values of the parameters of the where clause, bound by their type
+     */
+    public static <T> int deleteAll(Class<T> type, String whereClause, Object... whereArgs) {
+        String filter = (!TextUtils.isEmpty(whereClause)) ? " WHERE " + whereClause : "";
+        SQLiteStatement statement = getSugarDataBase().compileStatement("DELETE FROM " + getTableName(type) + filter);
+        int deleted;
+        try {
+            bindValues(statement, 1, whereArgs);
+            deleted = statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+        SugarSession.onWritten(type);
+        SugarCache.evictAll(type);
+        SugarQueryCache.invalidate(type);
+        return deleted;
+    }
+
+    /**
+     * Updates the rows matching the where clause with a single UPDATE statement, such as
+     * {@code updateAll(Note.class, "STATUS = ?, RETRIES = RETRIES + 1", new Object[] {2}, "STATUS = ?", "1")}.
+     *
+     * @param setArgs   the values of the parameters of the set clause, bound by their type
+     * @param whereArgs the values of the parameters of the where clause, bound by their type
+     * @return the number of rows updated
+     */
+    public static <T> int updateAll(Class<T> type, String setClause, Object[] setArgs, String whereClause, Object... whereArgs) {
+        String filter = (!TextUtils.isEmpty(whereClause)) ? " WHERE " + whereClause : "";
+        SQLiteStatement statement = getSugarDataBase().compileStatement("UPDATE " + getTableName(type)
+                + " SET " + setClause + filter);
+        int updated;
+        try {
+            bindValues(statement, bindValues(statement, 1, setArgs), whereArgs);
+            updated = statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+        SugarSession.onWritten(type);
+        SugarCache.evictAll(type);
+        SugarQueryCache.invalidate(type);
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, type.getSimpleName() + " updated : " + updated + " rows");
+        }
+        return updated;
+    }
+
+    /**
+     * @return the next index to bind
+     */
+    private static int bindValues(SQLiteStatement statement, int index, Object[] values) {
+        if (values != null) {
+            for (Object value : values) {
+                BindingCursorFactory.bindValue(statement, index++, value);
+            }
+        }
+        return index;
     }
 
-    public static <T> Cursor getCursor(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-        Cursor raw = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, whereArgs,
-                groupBy, null, orderBy, limit);
+    /**
+     * @param whereArgs the values of the parameters of the where clause, bound by their type
+     */
+    public static <T> Cursor getCursor(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit) {
+        Cursor raw = rawQuery(type, buildQuery(type, whereClause, groupBy, orderBy, limit), whereArgs);
         return new SugarCursor(raw);
     }
 
@@ -53,9 +124,7 @@ public class SugarRecord {
         try {
             sqLiteDatabase.beginTransaction();
             sqLiteDatabase.setLockingEnabled(false);
-            for (T object: objects) {
-                save(object);
-            }
+            saveAll(sqLiteDatabase, objects, false);
             sqLiteDatabase.setTransactionSuccessful();
         } catch (Exception e) {
             if (ManifestHelper.isDebugEnabled()) {
@@ -64,9 +133,173 @@ public class SugarRecord {
         } finally {
             sqLiteDatabase.endTransaction();
             sqLiteDatabase.setLockingEnabled(true);
+            SugarCache.onTransactionEnded();
         }
     }
 
+    /**
+     * Saves the objects in order. Runs of new objects of the same class are inserted with multi-row
+     * INSERT statements when the entity and the SQLite version allow it, the other objects are
+     * saved one by one. Objects given an id by {@link SugarIdAllocator} count as new objects.
+     *
+     * @param relationsSaved whether the entities the objects reference are known to be saved, in
+     *                       which case objects with relations can be batched too
+     * @return the objects which couldn't be saved
+     */
+    private static <T> List<T> saveAll(SQLiteDatabase db, Collection<T> objects, boolean relationsSaved) {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        boolean multiRowValues = SQLiteVersion.isAtLeast(db, SQLiteVersion.MULTI_ROW_VALUES);
+        EntityStatements batchStatements = null;
+        List<T> batch = new ArrayList<>();
+        List<Long> batchIds = null;
+        Set<Object> batched = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        List<T> failed = new ArrayList<>();
+
+        for (T object : objects) {
+            EntityStatements statements = StatementCache.getStatements(db, object.getClass());
+            Long rowId = getRowId(statements, object, entitiesMap);
+            boolean assigned = SugarIdAllocator.isUnsaved(object, rowId);
+            boolean batchable = multiRowValues &&
+                    statements.getBatchSize(relationsSaved) > 0 &&
+                    !batched.contains(object) &&
+                    (rowId == null || assigned);
+
+            if (!batchable || statements != batchStatements || assigned != (batchIds != null) ||
+                    batch.size() == statements.getBatchSize(relationsSaved)) {
+                insertBatch(db, batchStatements, batch, batchIds, entitiesMap, failed);
+                batch.clear();
+                batched.clear();
+                batchIds = assigned ? new ArrayList<Long>() : null;
+            }
+
+            if (batchable) {
+                batchStatements = statements;
+                batch.add(object);
+                batched.add(object);
+                if (assigned) {
+                    batchIds.add(rowId);
+                }
+            } else if (save(db, object) == -1) {
+                failed.add(object);
+            }
+        }
+        insertBatch(db, batchStatements, batch, batchIds, entitiesMap, failed);
+        return failed;
+    }
+
+    private static <T> void insertBatch(SQLiteDatabase db, EntityStatements statements, List<T> batch, List<Long> ids, Map<Object, Long> entitiesMap, List<T> failed) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long lastId = batch.size() > 1 ? statements.insertBatch(batch, ids, entitiesMap) : -1;
+        if (lastId == -1) {
+            // Nothing was inserted, let each row succeed or fail on its own as save would
+            for (T object : batch) {
+                if (save(db, object) == -1) {
+                    failed.add(object);
+                }
+            }
+            return;
+        }
+
+        SugarQueryCache.invalidate(batch.get(0).getClass());
+        if (ids != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                SugarIdAllocator.markSaved(batch.get(i));
+                SugarSession.onSaved(batch.get(i), ids.get(i));
+            }
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SUGAR, batch.get(0).getClass().getSimpleName() + " saved : " + batch.size() + " rows with assigned ids");
+            }
+            return;
+        }
+
+        long firstId = lastId - batch.size() + 1;
+        for (int i = 0; i < batch.size(); i++) {
+            setSavedId(batch.get(i), statements.getIdField(), firstId + i, entitiesMap);
+            SugarSession.onSaved(batch.get(i), firstId + i);
+        }
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, batch.get(0).getClass().getSimpleName() + " saved : " + firstId + " to " + lastId);
+        }
+    }
+
+    /**
+     * Saves the objects in transactions of at most chunkSize objects, each committed before the
+     * next one starts, so that the journal size and the time the database stays locked are bounded.
+     * A chunk which throws is rolled back, the following chunks are still saved.
+     *
+     * @return the objects which couldn't be saved, including all the objects of rolled back chunks
+     */
+    public static <T> List<T> saveInTx(Collection<T> objects, int chunkSize) {
+        return saveInTx(objects, chunkSize, null);
+    }
+
+    /**
+     * Same as {@link #saveInTx(Collection, int)}, reporting the progress to the callback after
+     * each chunk.
+     */
+    public static <T> List<T> saveInTx(Collection<T> objects, int chunkSize, ChunkCallback<T> callback) {
+        return writeInChunks(objects, chunkSize, callback, new ChunkWriter<T>() {
+            @Override
+            public List<T> write(SQLiteDatabase db, List<T> chunk) {
+                return saveAll(db, chunk, false);
+            }
+        });
+    }
+
+    /**
+     * Saves the object and every entity reachable from it through entity fields and
+     * {@link OneToMany} lists, in a single transaction. See {@link #saveGraphInTx(Collection)}.
+     *
+     * @return the id of the object or -1 if the graph couldn't be saved
+     */
+    public static long saveGraph(Object root) {
+        if (!saveGraphInTx(Collections.singletonList(root)).isEmpty()) {
+            return -1;
+        }
+        Long id = getRowId(StatementCache.getStatements(getSugarDataBase(), root.getClass()), root, getSugarContext().getEntitiesMap());
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Saves the objects and every entity reachable from them through entity fields and
+     * {@link OneToMany} lists, in a single transaction. Unsaved entities are saved after the
+     * unsaved entities they reference, the elements of a {@link OneToMany} list after their owner,
+     * and the target field of the elements is pointed to the owner when it is null. The entities
+     * of each type which don't depend on each other are inserted together.
+     *
+     * @return the objects which couldn't be saved, or all of them if the transaction was rolled back
+     * @throws IllegalArgumentException if unsaved entities reference each other in a cycle, in
+     *                                  which case nothing is saved nor any target field set
+     */
+    public static List<Object> saveGraphInTx(Collection<?> roots) {
+        List<List<Object>> groups = new EntityGraph(roots, getSugarContext().getEntitiesMap(),
+                getSugarContext().getStubs()).getSaveOrder();
+        SQLiteDatabase sqLiteDatabase = getSugarDataBase();
+        List<Object> failed = new ArrayList<>();
+        try {
+            sqLiteDatabase.beginTransaction();
+            sqLiteDatabase.setLockingEnabled(false);
+            for (List<Object> group : groups) {
+                failed.addAll(saveAll(sqLiteDatabase, group, true));
+            }
+            sqLiteDatabase.setTransactionSuccessful();
+        } catch (Exception e) {
+            failed.clear();
+            for (List<Object> group : groups) {
+                failed.addAll(group);
+            }
+            Log.e(SUGAR, "Error in saving graph in transaction, rolled back", e);
+        } finally {
+            sqLiteDatabase.endTransaction();
+            sqLiteDatabase.setLockingEnabled(true);
+            SugarCache.onTransactionEnded();
+        }
+        return failed;
+    }
+
     public static <T> void updateInTx(T... objects) {
         updateInTx(Arrays.asList(objects));
     }
@@ -87,22 +320,112 @@ public class SugarRecord {
         } finally {
             sqLiteDatabase.endTransaction();
             sqLiteDatabase.setLockingEnabled(true);
+            SugarCache.onTransactionEnded();
+        }
+    }
+
+    /**
+     * Updates the objects in transactions of at most chunkSize objects, like
+     * {@link #saveInTx(Collection, int)}.
+     *
+     * @return the objects which couldn't be updated, including all the objects of rolled back chunks
+     */
+    public static <T> List<T> updateInTx(Collection<T> objects, int chunkSize) {
+        return updateInTx(objects, chunkSize, null);
+    }
+
+    /**
+     * Same as {@link #updateInTx(Collection, int)}, reporting the progress to the callback after
+     * each chunk.
+     */
+    public static <T> List<T> updateInTx(Collection<T> objects, int chunkSize, ChunkCallback<T> callback) {
+        return writeInChunks(objects, chunkSize, callback, new ChunkWriter<T>() {
+            @Override
+            public List<T> write(SQLiteDatabase db, List<T> chunk) {
+                List<T> failed = new ArrayList<>();
+                for (T object : chunk) {
+                    if (update(db, object) == -1) {
+                        failed.add(object);
+                    }
+                }
+                return failed;
+            }
+        });
+    }
+
+    private static <T> List<T> writeInChunks(Collection<T> objects, int chunkSize, ChunkCallback<T> callback, ChunkWriter<T> writer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive, was " + chunkSize);
+        }
+
+        SQLiteDatabase sqLiteDatabase = getSugarDataBase();
+        List<T> failed = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(chunkSize, objects.size()));
+        int processed = 0;
+        Iterator<T> iterator = objects.iterator();
+
+        while (iterator.hasNext()) {
+            chunk.clear();
+            while (iterator.hasNext() && chunk.size() < chunkSize) {
+                chunk.add(iterator.next());
+            }
+
+            List<T> chunkFailed;
+            try {
+                sqLiteDatabase.beginTransaction();
+                sqLiteDatabase.setLockingEnabled(false);
+                chunkFailed = writer.write(sqLiteDatabase, chunk);
+                sqLiteDatabase.setTransactionSuccessful();
+            } catch (Exception e) {
+                chunkFailed = new ArrayList<>(chunk);
+                Log.e(SUGAR, "Error in chunk " + processed + " to " + (processed + chunk.size()) + ", rolled back", e);
+            } finally {
+                sqLiteDatabase.endTransaction();
+                sqLiteDatabase.setLockingEnabled(true);
+                SugarCache.onTransactionEnded();
+            }
+
+            processed += chunk.size();
+            failed.addAll(chunkFailed);
+            if (callback != null) {
+                callback.onChunkCompleted(processed, objects.size(), chunkFailed);
+            }
         }
+        return failed;
     }
 
     public static <T> int deleteInTx(T... objects) {
         return deleteInTx(Arrays.asList(objects));
     }
 
+    /**
+     * Deletes the objects in a single transaction, with one statement per class and chunk of ids.
+     * The objects of a class overriding {@link #delete()} are deleted one by one through it.
+     *
+     * @return the number of deleted rows, or 0 if the transaction was rolled back
+     */
     public static <T> int deleteInTx(Collection<T> objects) {
         SQLiteDatabase sqLiteDatabase = getSugarDataBase();
         int deletedRows = 0;
         try {
             sqLiteDatabase.beginTransaction();
             sqLiteDatabase.setLockingEnabled(false);
-            for (T object : objects) {
-                if (delete(object)) {
-                    ++deletedRows;
+            List<SugarRecord> overriding = new ArrayList<>();
+            for (Map.Entry<Class<?>, Set<Long>> entry : collectIds(sqLiteDatabase, objects, overriding).entrySet()) {
+                int deleted = StatementCache.getStatements(sqLiteDatabase, entry.getKey()).deleteByIds(entry.getValue());
+                for (Long id : entry.getValue()) {
+                    SugarSession.onDeleted(entry.getKey(), id);
+                    SugarCache.evict(entry.getKey(), id);
+                }
+                SugarQueryCache.invalidate(entry.getKey());
+                if (ManifestHelper.isDebugEnabled()) {
+                    Log.i(SUGAR, entry.getKey().getSimpleName() + " deleted : " + deleted + " rows");
+                }
+                deletedRows += deleted;
+            }
+            for (SugarRecord record : overriding) {
+                if (record.delete()) {
+                    deletedRows++;
                 }
             }
             sqLiteDatabase.setTransactionSuccessful();
@@ -114,10 +437,62 @@ public class SugarRecord {
         } finally {
             sqLiteDatabase.endTransaction();
             sqLiteDatabase.setLockingEnabled(true);
+            SugarCache.onTransactionEnded();
         }
         return deletedRows;
     }
 
+    /**
+     * @param overriding the list to which the objects of classes overriding {@link #delete()} are
+     *                   added instead
+     * @return the distinct ids of the saved objects grouped by class, objects which can't be
+     *         deleted being skipped like {@link #delete(Object)} does
+     */
+    private static Map<Class<?>, Set<Long>> collectIds(SQLiteDatabase db, Collection<?> objects, List<SugarRecord> overriding) {
+        Map<Class<?>, Set<Long>> ids = new LinkedHashMap<>();
+        Map<Class<?>, Boolean> overridesDelete = new HashMap<>();
+        for (Object object : objects) {
+            Class<?> type = object.getClass();
+            Long id = null;
+            if (object instanceof SugarRecord && overridesDelete(type, overridesDelete)) {
+                overriding.add((SugarRecord) object);
+                continue;
+            } else if (type.isAnnotationPresent(Table.class)) {
+                Field idField = StatementCache.getStatements(db, type).getIdField();
+                if (idField != null) {
+                    id = ReflectionUtil.getIdValue(idField, object);
+                }
+            } else if (SugarRecord.class.isAssignableFrom(type)) {
+                id = ((SugarRecord) object).getId();
+            }
+
+            if (id != null && id > 0L) {
+                Set<Long> typeIds = ids.get(type);
+                if (typeIds == null) {
+                    typeIds = new LinkedHashSet<>();
+                    ids.put(type, typeIds);
+                }
+                typeIds.add(id);
+            } else if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - object has not been saved");
+            }
+        }
+        return ids;
+    }
+
+    private static boolean overridesDelete(Class<?> type, Map<Class<?>, Boolean> known) {
+        Boolean overrides = known.get(type);
+        if (overrides == null) {
+            try {
+                overrides = type.getMethod("delete").getDeclaringClass() != SugarRecord.class;
+            } catch (NoSuchMethodException e) {
+                overrides = false;
+            }
+            known.put(type, overrides);
+        }
+        return overrides;
+    }
+
     public static <T> List<T> listAll(Class<T> type) {
         return find(type, null, null, null, null, null);
     }
@@ -127,6 +502,23 @@ public class SugarRecord {
     }
 
     public static <T> T findById(Class<T> type, Long id) {
+        SugarSession session = SugarSession.current();
+        if (session != null && id != null) {
+            T entity = session.get(type, id);
+            if (entity != null) {
+                return entity;
+            }
+        }
+        if (id != null) {
+            Cursor cached = SugarCache.getRows(type, Collections.singletonList(id), new ArrayList<Long>());
+            if (cached != null) {
+                // Falls through to the query if the cached row couldn't be inflated
+                List<T> hit = getEntitiesFromCursor(cached, type, null, null, FetchPlan.DEFAULT, false);
+                if (!hit.isEmpty()) {
+                    return hit.get(0);
+                }
+            }
+        }
         List<T> list = find(type, "id=?", new String[]{String.valueOf(id)}, null, null, "1");
         if (list.isEmpty()) return null;
         return list.get(0);
@@ -137,13 +529,45 @@ public class SugarRecord {
     }
 
     public static <T> List<T> findById(Class<T> type, String... ids) {
+        if (SugarCache.isCacheable(type)) {
+            return findCachedByIds(type, ids);
+        }
         String whereClause = "id IN (" + QueryBuilder.generatePlaceholders(ids.length) + ")";
         return find(type, whereClause, ids);
     }
 
+    /**
+     * Inflates the entities whose row is in the {@link SugarCache}, and queries the others.
+     */
+    private static <T> List<T> findCachedByIds(Class<T> type, String... ids) {
+        List<Long> rowIds = new ArrayList<>(ids.length);
+        for (String id : ids) {
+            try {
+                rowIds.add(Long.valueOf(id.trim()));
+            } catch (NumberFormatException e) {
+                String whereClause = "id IN (" + QueryBuilder.generatePlaceholders(ids.length) + ")";
+                return find(type, whereClause, ids);
+            }
+        }
+
+        List<Long> misses = new ArrayList<>();
+        Cursor cached = SugarCache.getRows(type, rowIds, misses);
+        List<T> result = cached != null
+                ? getEntitiesFromCursor(cached, type, null, null, FetchPlan.DEFAULT, false)
+                : new ArrayList<T>();
+        if (!misses.isEmpty()) {
+            String[] args = new String[misses.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = String.valueOf(misses.get(i));
+            }
+            result.addAll(find(type, "id IN (" + QueryBuilder.generatePlaceholders(args.length) + ")", args));
+        }
+        return result;
+    }
+
     public static <T> T first(Class<T>type) {
         List<T> list = findWithQuery(type,
-                "SELECT * FROM " + NamingHelper.toTableName(type) + " ORDER BY ID ASC LIMIT 1");
+                "SELECT * FROM " + getTableName(type) + " ORDER BY ID ASC LIMIT 1");
         if (list.isEmpty()) {
             return null;
         }
@@ -152,7 +576,7 @@ public class SugarRecord {
 
     public static <T> T last(Class<T>type) {
         List<T> list = findWithQuery(type,
-                "SELECT * FROM " + NamingHelper.toTableName(type) + " ORDER BY ID DESC LIMIT 1");
+                "SELECT * FROM " + getTableName(type) + " ORDER BY ID DESC LIMIT 1");
         if (list.isEmpty()) {
             return null;
         }
@@ -173,9 +597,26 @@ public class SugarRecord {
     }
 
     public static <T> Iterator<T> findAsIterator(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-        Cursor cursor = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, whereArgs,
-                groupBy, null, orderBy, limit);
-        return new CursorIterator<>(type, cursor);
+        return findAsIterator(type, whereClause, whereArgs, groupBy, orderBy, limit, FetchPlan.DEFAULT);
+    }
+
+    /**
+     * @param fetchPlan whether to track the entities. The relations of each row are read as it is
+     *                  iterated; those of read-only rows are read-only too, and follow the fetch
+     *                  type and depth of the plan
+     * @param whereArgs the values of the parameters of the where clause, bound by their type
+     */
+    public static <T> Iterator<T> findAsIterator(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit, FetchPlan fetchPlan) {
+        return findWithQueryAsIterator(type, buildQuery(type, whereClause, groupBy, orderBy, limit), whereArgs, fetchPlan);
+    }
+
+    /**
+     * @param query     a query of full rows of the table of the type, see {@link #buildQuery}
+     * @param arguments the values of its parameters, bound by their type
+     * @see #findAsIterator(Class, String, Object[], String, String, String, FetchPlan)
+     */
+    public static <T> Iterator<T> findWithQueryAsIterator(Class<T> type, String query, Object[] arguments, FetchPlan fetchPlan) {
+        return new CursorIterator<>(type, rawQuery(type, query, arguments), fetchPlan);
     }
 
     public static <T> List<T> find(Class<T> type, String whereClause, String... whereArgs) {
@@ -190,24 +631,71 @@ public class SugarRecord {
 
     public static void executeQuery(String query, String... arguments) {
         getSugarDataBase().execSQL(query, arguments);
+        SugarCache.clear();
+        SugarQueryCache.clear();
     }
 
     public static <T> List<T> find(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-
         String[] args;
         args = (whereArgs == null) ? null : replaceArgs(whereArgs);
 
-        Cursor cursor = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, args,
-                groupBy, null, orderBy, limit);
+        return find(type, whereClause, args, groupBy, orderBy, limit, FetchPlan.DEFAULT);
+    }
 
-        return getEntitiesFromCursor(cursor, type);
+    /**
+     * @param args      the arguments of the where clause, bound by their type: unlike the other
+     *                  overloads, "true" and "false" are not replaced by 1 and 0
+     * @param fetchPlan how to read the results and their relations
+     */
+    public static <T> List<T> find(Class<T> type, String whereClause, Object[] args, String groupBy, String orderBy, String limit, FetchPlan fetchPlan) {
+        return findWithQuery(type, buildQuery(type, whereClause, groupBy, orderBy, limit), args, fetchPlan);
+    }
+
+    /**
+     * Reads the entities of a query built ahead, such as by a {@link com.orm.query.PreparedSelect},
+     * so that running it again doesn't build its SQL again.
+     *
+     * @param query     a query of full rows of the table of the type, see {@link #buildQuery}
+     * @param arguments the values of its parameters, bound by their type
+     * @param fetchPlan how to read the results and their relations
+     */
+    public static <T> List<T> findWithQuery(Class<T> type, String query, Object[] arguments, FetchPlan fetchPlan) {
+        List<?> key = null;
+        if (fetchPlan.isResultCached()) {
+            key = Arrays.asList("SELECT", query, arguments == null ? null : Arrays.asList(arguments));
+            Cursor cached = SugarQueryCache.getRows(type, key);
+            if (cached != null) {
+                return getEntitiesFromCursor(cached, type, null, null, fetchPlan, false);
+            }
+        }
+
+        Cursor cursor = rawQuery(type, query, arguments);
+        if (key != null) {
+            cursor = SugarQueryCache.recordRows(type, key, cursor);
+        }
+
+        return getEntitiesFromCursor(cursor, type, null, null, fetchPlan, true);
+    }
+
+    /**
+     * @return the SELECT of the full rows of the table of the type, as run by
+     *         {@link #find(Class, String, Object[], String, String, String, FetchPlan)}
+     */
+    public static String buildQuery(Class<?> type, String whereClause, String groupBy, String orderBy, String limit) {
+        return SQLiteQueryBuilder.buildQueryString(false, getTableName(type), null, whereClause, groupBy, null,
+                orderBy, limit);
+    }
+
+    private static Cursor rawQuery(Class<?> type, String query, Object[] arguments) {
+        return getSugarDataBase().rawQueryWithFactory(new BindingCursorFactory(arguments), query, null,
+                getTableName(type));
     }
 
     public static <T> List<T> findOneToMany(Class<T> type, String relationFieldName, Object relationObject, Long relationObjectId) {
         String[] args = { String.valueOf(relationObjectId) };
         String whereClause = NamingHelper.toSQLNameDefault(relationFieldName) + " = ?";
 
-        Cursor cursor = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, args,
+        Cursor cursor = getSugarDataBase().query(getTableName(type), null, whereClause, args,
                 null, null, null, null);
 
         return getEntitiesFromCursor(cursor, type, relationFieldName, relationObject);
@@ -218,20 +706,50 @@ public class SugarRecord {
     }
 
     public static <T> List<T> getEntitiesFromCursor(Cursor cursor, Class<T> type, String relationFieldName, Object relationObject){
+        return getEntitiesFromCursor(cursor, type, relationFieldName, relationObject, FetchPlan.DEFAULT, false);
+    }
+
+    /**
+     * @param cacheRows true if the cursor reads full rows of the table of the type, which are then
+     *                  put in the {@link SugarCache} if the type is cacheable
+     */
+    private static <T> List<T> getEntitiesFromCursor(Cursor cursor, Class<T> type, String relationFieldName, Object relationObject, FetchPlan fetchPlan, boolean cacheRows){
         T entity;
         List<T> result = new ArrayList<>();
         try {
+            // Read-only entities are neither tracked nor held by the session
+            boolean readOnly = fetchPlan.isReadOnly();
+            Map<Object, Long> entitiesMap = readOnly ? null : getSugarContext().getEntitiesMap();
+            Map<Object, ContentValues> snapshots = readOnly ? null : getSugarContext().getSnapshots();
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            SugarSession session = readOnly ? null : SugarSession.current();
+            IdentityMap identityMap = session != null ? session.getIdentityMap() : new IdentityMap();
+            RelationLoader relationLoader = new RelationLoader(entitiesMap, snapshots,
+                    fetchPlan.getMaxDepth(), identityMap);
+            EntityInflater inflater = new EntityInflater()
+                    .withCursor(cursor)
+                    .withEntitiesMap(entitiesMap)
+                    .withSnapshots(snapshots)
+                    .withRelationLoader(relationLoader)
+                    .withFetchType(fetchPlan.getFetchType())
+                    .withRelationFieldName(relationFieldName)
+                    .withRelationObject(relationObject);
+            SugarCache.RowWriter cacheWriter = cacheRows ? SugarCache.newRowWriter(type, cursor) : null;
+            // Rows already held by the session keep their instance and its pending changes
+            int idIndex = session != null ? cursor.getColumnIndex("ID") : -1;
             while (cursor.moveToNext()) {
-                entity = type.getDeclaredConstructor().newInstance();
-                new EntityInflater()
-                        .withCursor(cursor)
-                        .withObject(entity)
-                        .withEntitiesMap(getSugarContext().getEntitiesMap())
-                        .withRelationFieldName(relationFieldName)
-                        .withRelationObject(relationObject)
-                        .inflate();
+                if (cacheWriter != null) {
+                    cacheWriter.write(cursor);
+                }
+                entity = idIndex >= 0 ? identityMap.get(type, cursor.getLong(idIndex)) : null;
+                if (entity == null) {
+                    entity = constructor.newInstance();
+                    inflater.withObject(entity).inflate();
+                }
                 result.add(entity);
             }
+            cursor.close();
+            relationLoader.load();
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
@@ -249,24 +767,22 @@ public class SugarRecord {
     	return count(type, whereClause, whereArgs, null, null, null);
     }
 
-    public static <T> long count(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+    /**
+     * @param whereArgs the values of the parameters of the where clause, bound by their type
+     */
+    public static <T> long count(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit) {
         long result = -1;
         String filter = (!TextUtils.isEmpty(whereClause)) ? " where "  + whereClause : "";
         SQLiteStatement sqliteStatement;
         try {
-            sqliteStatement = getSugarDataBase().compileStatement("SELECT count(*) FROM " + NamingHelper.toTableName(type) + filter);
+            sqliteStatement = getSugarDataBase().compileStatement("SELECT count(*) FROM " + getTableName(type) + filter);
         } catch (SQLiteException e) {
             e.printStackTrace();
             return result;
         }
 
-        if (whereArgs != null) {
-            for (int i = whereArgs.length; i != 0; i--) {
-                sqliteStatement.bindString(i, whereArgs[i - 1]);
-            }
-        }
-
         try {
+            bindValues(sqliteStatement, 1, whereArgs);
             result = sqliteStatement.simpleQueryForLong();
         } finally {
             sqliteStatement.close();
@@ -284,7 +800,7 @@ public class SugarRecord {
         String filter = (!TextUtils.isEmpty(whereClause)) ? " where " + whereClause : "";
         SQLiteStatement sqLiteStatement;
         try {
-            sqLiteStatement = getSugarDataBase().compileStatement("SELECT sum(" + field + ") FROM " + NamingHelper.toTableName(type) + filter);
+            sqLiteStatement = getSugarDataBase().compileStatement("SELECT sum(" + field + ") FROM " + getTableName(type) + filter);
         } catch (SQLiteException e) {
             e.printStackTrace();
             return result;
@@ -311,24 +827,72 @@ public class SugarRecord {
 
     static long save(SQLiteDatabase db, Object object) {
         Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
-        ContentValues values = new ContentValues(columns.size());
-        Field idField = null;
-        for (Field column : columns) {
-            ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
-            if (column.getName().equals("id")) {
-                idField = column;
-            }
+        EntityStatements statements = StatementCache.getStatements(db, object.getClass());
+        if (getSugarContext().getStubs().contains(object)) {
+            return skipStub(statements, object, entitiesMap);
         }
+        return save(statements, object, getRowId(statements, object, entitiesMap), entitiesMap);
+    }
 
-        boolean isSugarEntity = isSugarEntity(object.getClass());
-        if (isSugarEntity && entitiesMap.containsKey(object)) {
-                values.put("id", entitiesMap.get(object));
+    /**
+     * Leaves the row of a stub, an entity read past the fetch depth of a query which holds only
+     * its id, as it is instead of overwriting its other columns with nulls.
+     *
+     * @return the id of the stub
+     */
+    private static long skipStub(EntityStatements statements, Object stub, Map<Object, Long> entitiesMap) {
+        Long id = getRowId(statements, stub, entitiesMap);
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, stub.getClass().getSimpleName() + " " + id + " is a stub, not written");
         }
+        return id != null ? id : -1;
+    }
 
-        long id = db.insertWithOnConflict(NamingHelper.toTableName(object.getClass()), null, values,
-                SQLiteDatabase.CONFLICT_REPLACE);
+    /**
+     * Writes the object to the row with the given id, or to a new row or the row with the same
+     * unique key if rowId is null. An id given by {@link SugarIdAllocator} is known to be free, so
+     * the row is simply inserted.
+     */
+    private static long save(EntityStatements statements, Object object, Long rowId, Map<Object, Long> entitiesMap) {
+        long id;
+        if ((rowId == null || SugarIdAllocator.isUnsaved(object, rowId)) && !statements.hasUniqueConstraint()) {
+            id = statements.insert(object, rowId, entitiesMap);
+        } else if (statements.supportsUpsert()) {
+            id = statements.upsert(object, rowId, entitiesMap);
+        } else {
+            id = statements.replace(object, rowId, entitiesMap);
+        }
 
+        setSavedId(object, statements.getIdField(), id, entitiesMap);
+        if (id != -1) {
+            SugarIdAllocator.markSaved(object);
+            SugarCache.evict(object.getClass(), id);
+            SugarQueryCache.invalidate(object.getClass());
+        }
+        SugarSession.onSaved(object, id);
+
+        Map<Object, ContentValues> snapshots = getSugarContext().getSnapshots();
+        if (snapshots.containsKey(object)) {
+            snapshots.put(object, EntitySnapshots.snapshotOf(object, entitiesMap));
+        }
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, object.getClass().getSimpleName() + " saved : " + id);
+        }
+
+        return id;
+    }
+
+    private static Long getRowId(EntityStatements statements, Object object, Map<Object, Long> entitiesMap) {
+        if (isSugarEntity(object.getClass()) && entitiesMap.containsKey(object)) {
+            return entitiesMap.get(object);
+        } else if (statements.getIdField() != null) {
+            return ReflectionUtil.getIdValue(statements.getIdField(), object);
+        }
+        return null;
+    }
+
+    private static void setSavedId(Object object, Field idField, long id, Map<Object, Long> entitiesMap) {
         if (object.getClass().isAnnotationPresent(Table.class)) {
             if (idField != null) {
                 idField.setAccessible(true);
@@ -343,12 +907,6 @@ public class SugarRecord {
         } else if (SugarRecord.class.isAssignableFrom(object.getClass())) {
             ((SugarRecord) object).setId(id);
         }
-
-        if (ManifestHelper.isDebugEnabled()) {
-            Log.i(SUGAR, object.getClass().getSimpleName() + " saved : " + id);
-        }
-
-        return id;
     }
 
     public static long update(Object object) {
@@ -357,34 +915,51 @@ public class SugarRecord {
 
     static long update(SQLiteDatabase db, Object object) {
         Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
+        if (getSugarContext().getStubs().contains(object)) {
+            return skipStub(StatementCache.getStatements(db, object.getClass()), object, entitiesMap);
+        }
+        ContentValues snapshot = getSugarContext().getSnapshots().get(object);
+        if (snapshot != null) {
+            Long rowId = getRowId(StatementCache.getStatements(db, object.getClass()), object, entitiesMap);
+            if (rowId != null) {
+                return updateChanged(db, object, rowId, snapshot, entitiesMap);
+            }
+        }
+
+        EntityStatements statements = StatementCache.getStatements(db, object.getClass());
+        if (statements.hasUniqueKey() && statements.supportsUpsert()) {
+            // Matches the row on its unique key, or inserts it, in a single statement
+            return save(statements, object, null, entitiesMap);
+        }
+
+        EntityDescriptor descriptor = EntityDescriptor.of(object.getClass());
+        List<EntityDescriptor.Property> columns = descriptor.getColumns();
         ContentValues values = new ContentValues(columns.size());
 
         StringBuilder whereClause = new StringBuilder();
         List<String> whereArgs = new ArrayList<>();
 
-        for (Field column : columns) {
-            if(column.isAnnotationPresent(Unique.class)) {
+        for (EntityDescriptor.Property column : columns) {
+            if(column.getField().isAnnotationPresent(Unique.class)) {
                 try {
-                    column.setAccessible(true);
-                    String columnName = NamingHelper.toColumnName(column);
-                    Object columnValue = column.get(object);
+                    Object columnValue = column.getField().get(object);
 
-                    whereClause.append(columnName).append(" = ?");
+                    whereClause.append(column.getColumnName()).append(" = ?");
                     whereArgs.add(String.valueOf(columnValue));
                 } catch (IllegalAccessException e) {
                     e.printStackTrace();
                 }
             } else {
-                if (!column.getName().equals("id")) {
-                    ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
-                }
+                ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
             }
         }
 
         String[] whereArgsArray = whereArgs.toArray(new String[0]);
         // Get SugarRecord based on Unique values
-        long rowsEffected = db.update(NamingHelper.toTableName(object.getClass()), values, whereClause.toString(), whereArgsArray);
+        long rowsEffected = db.updateWithOnConflict(descriptor.getTableName(), values,
+                whereClause.toString(), whereArgsArray, getUpdateConflictAlgorithm(object.getClass()));
+        SugarCache.evictAll(object.getClass());
+        SugarQueryCache.invalidate(object.getClass());
 
         if (rowsEffected == 0) {
             return save(db, object);
@@ -393,6 +968,10 @@ public class SugarRecord {
         }
     }
 
+    private static String getTableName(Class<?> type) {
+        return EntityDescriptor.of(type).getTableName();
+    }
+
     public static boolean isSugarEntity(Class<?> objectClass) {
         return objectClass.isAnnotationPresent(Table.class) || SugarRecord.class.isAssignableFrom(objectClass);
     }
@@ -404,7 +983,11 @@ public class SugarRecord {
             if(ManifestHelper.isDebugEnabled()) {
                 Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
             }
-            return getSugarDataBase().delete(NamingHelper.toTableName(type), "Id=?", new String[]{id.toString()}) == 1;
+            boolean deleted = StatementCache.getStatements(getSugarDataBase(), type).deleteById(id) == 1;
+            SugarSession.onDeleted(type, id);
+            SugarCache.evict(type, id);
+            SugarQueryCache.invalidate(type);
+            return deleted;
         } else {
             if(ManifestHelper.isDebugEnabled()) {
                 Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - object has not been saved");
@@ -413,6 +996,40 @@ public class SugarRecord {
         }
     }
 
+    /**
+     * Updates only the columns of a loaded entity which changed since it was read or last written.
+     * No statement runs when nothing changed, in which case the row is considered up to date.
+     */
+    private static long updateChanged(SQLiteDatabase db, Object object, long rowId, ContentValues snapshot, Map<Object, Long> entitiesMap) {
+        ContentValues values = EntitySnapshots.getColumnValues(object, entitiesMap);
+        ContentValues changed = EntitySnapshots.getChangedValues(values, snapshot);
+        if (changed.size() == 0) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SUGAR, object.getClass().getSimpleName() + " unchanged : " + rowId);
+            }
+            return 1;
+        }
+
+        long rowsEffected = db.updateWithOnConflict(getTableName(object.getClass()), changed, "ID = ?",
+                new String[] { String.valueOf(rowId) }, getUpdateConflictAlgorithm(object.getClass()));
+        SugarCache.evict(object.getClass(), rowId);
+        SugarQueryCache.invalidate(object.getClass());
+
+        if (rowsEffected == 0) {
+            return save(db, object);
+        }
+        getSugarContext().getSnapshots().put(object, EntitySnapshots.ownBlobs(values));
+        return rowsEffected;
+    }
+
+    /**
+     * Tables with a {@link MultiUnique} constraint used to be created with ON CONFLICT REPLACE,
+     * which updates keep doing
+     */
+    private static int getUpdateConflictAlgorithm(Class<?> type) {
+        return type.isAnnotationPresent(MultiUnique.class) ? SQLiteDatabase.CONFLICT_REPLACE : SQLiteDatabase.CONFLICT_NONE;
+    }
+
     public static boolean delete(Object object) {
         Class<?> type = object.getClass();
         if (type.isAnnotationPresent(Table.class)) {
@@ -421,7 +1038,10 @@ public class SugarRecord {
                 field.setAccessible(true);
                 Long id = (Long) field.get(object);
                 if (id != null && id > 0L) {
-                    boolean deleted = getSugarDataBase().delete(NamingHelper.toTableName(type), "Id=?", new String[]{id.toString()}) == 1;
+                    boolean deleted = StatementCache.getStatements(getSugarDataBase(), type).deleteById(id) == 1;
+                    SugarSession.onDeleted(type, id);
+                    SugarCache.evict(type, id);
+                    SugarQueryCache.invalidate(type);
                     if(ManifestHelper.isDebugEnabled()) {
                         Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
                     }
@@ -466,6 +1086,7 @@ public class SugarRecord {
                 .withCursor(cursor)
                 .withObject(this)
                 .withEntitiesMap(getSugarContext().getEntitiesMap())
+                .withSnapshots(getSugarContext().getSnapshots())
                 .inflate();
     }
 
@@ -477,13 +1098,52 @@ public class SugarRecord {
         this.id = id;
     }
 
+    /**
+     * Progress of a chunked {@link #saveInTx(Collection, int, ChunkCallback)} or
+     * {@link #updateInTx(Collection, int, ChunkCallback)}.
+     *
+     * @param <T> the type of the written objects
+     */
+    public interface ChunkCallback<T> {
+
+        /**
+         * Called after each chunk has been committed or rolled back.
+         *
+         * @param processed the number of objects processed so far, this chunk included
+         * @param total the number of objects to write
+         * @param failed the objects of this chunk which couldn't be written
+         */
+        void onChunkCompleted(int processed, int total, List<T> failed);
+    }
+
+    private interface ChunkWriter<T> {
+        List<T> write(SQLiteDatabase db, List<T> chunk);
+    }
+
     static class CursorIterator<E> implements Iterator<E> {
         Class<E> type;
         Cursor cursor;
+        EntityInflater inflater;
+        IdentityMap identityMap;
+        RelationLoader relationLoader;
 
         public CursorIterator(Class<E> type, Cursor cursor) {
+            this(type, cursor, FetchPlan.DEFAULT);
+        }
+
+        CursorIterator(Class<E> type, Cursor cursor, FetchPlan fetchPlan) {
             this.type = type;
             this.cursor = cursor;
+            this.inflater = new EntityInflater().withCursor(cursor);
+            if (fetchPlan.isReadOnly()) {
+                // Relations are read without tracking through a loader, with one row's entities at a time
+                this.identityMap = new IdentityMap();
+                this.relationLoader = new RelationLoader(null, null, fetchPlan.getMaxDepth(), identityMap);
+                inflater.withRelationLoader(relationLoader).withFetchType(fetchPlan.getFetchType());
+            } else {
+                inflater.withEntitiesMap(getSugarContext().getEntitiesMap())
+                        .withSnapshots(getSugarContext().getSnapshots());
+            }
         }
 
         @Override
@@ -504,11 +1164,11 @@ public class SugarRecord {
 
             try {
                 entity = type.getDeclaredConstructor().newInstance();
-                new EntityInflater()
-                        .withCursor(cursor)
-                        .withObject(entity)
-                        .withEntitiesMap(getSugarContext().getEntitiesMap())
-                        .inflate();
+                inflater.withObject(entity).inflate();
+                if (relationLoader != null) {
+                    relationLoader.load();
+                    identityMap.clear();
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             } finally {
@@ -0,0 +1,225 @@
+package com.orm;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import com.orm.util.EntityDescriptor;
+import com.orm.util.EntitySnapshots;
+import com.orm.util.IdentityMap;
+import com.orm.util.ReflectionUtil;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * A unit of work bound to the thread which opened it. While it is open, every entity read or saved
+ * on that thread is kept in an identity map by class and id: finding it again by id, or through
+ * the relation of another entity, returns the same instance without reading the row again, and
+ * queries return that instance for its row. Changes made to the entities are written back by
+ * {@link #flush()}.
+ *
+ * <pre>
+ * SugarSession session = SugarSession.open();
+ * try {
+ *     ...
+ *     session.flush();
+ * } finally {
+ *     session.close();
+ * }
+ * </pre>
+ *
+ * Sessions are not thread safe, and rows changed outside of the session, by SQL or on another
+ * thread, are not seen by the entities it already holds until they are evicted.
+ */
+public final class SugarSession implements Closeable {
+    private static final ThreadLocal<SugarSession> current = new ThreadLocal<>();
+
+    private final IdentityMap identityMap = new IdentityMap();
+    private final Thread thread;
+
+    private SugarSession() {
+        this.thread = Thread.currentThread();
+    }
+
+    /**
+     * @return a new session bound to the current thread
+     * @throws IllegalStateException if a session is already open on the current thread
+     */
+    public static SugarSession open() {
+        if (current.get() != null) {
+            throw new IllegalStateException("A session is already open on this thread");
+        }
+        SugarSession session = new SugarSession();
+        current.set(session);
+        return session;
+    }
+
+    /**
+     * @return the session open on the current thread, or null
+     */
+    public static SugarSession current() {
+        return current.get();
+    }
+
+    /**
+     * @return the entity of the given class and id held by the session, or null
+     */
+    public <T> T get(Class<T> type, long id) {
+        return identityMap.get(type, id);
+    }
+
+    /**
+     * @return true if the session holds the entity
+     */
+    public boolean contains(Object entity) {
+        Long id = getEntityId(entity);
+        return id != null && identityMap.get(entity.getClass(), id) == entity;
+    }
+
+    /**
+     * Removes the entity from the session, so that it is read again the next time it is found.
+     */
+    public void evict(Object entity) {
+        Long id = getEntityId(entity);
+        if (id != null && identityMap.get(entity.getClass(), id) == entity) {
+            identityMap.remove(entity.getClass(), id);
+        }
+    }
+
+    /**
+     * Removes every entity from the session.
+     */
+    public void clear() {
+        identityMap.clear();
+    }
+
+    /**
+     * @return the number of entities held by the session
+     */
+    public int size() {
+        return identityMap.size();
+    }
+
+    /**
+     * Writes the columns of the entities held by the session which changed since they were read or
+     * last written, in a single transaction. If any of them can't be written, the transaction is
+     * rolled back and the entities are still seen as changed by the next flush.
+     *
+     * @return the number of entities written
+     * @throws SQLiteException if an entity couldn't be written, in which case none is
+     */
+    public int flush() {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        Map<Object, ContentValues> snapshots = getSugarContext().getSnapshots();
+        Map<Object, ContentValues> changed = new IdentityHashMap<>();
+        for (Object entity : identityMap.values()) {
+            ContentValues snapshot = snapshots.get(entity);
+            if (snapshot == null || EntitySnapshots.getChangedValues(
+                    EntitySnapshots.getColumnValues(entity, entitiesMap), snapshot).size() > 0) {
+                changed.put(entity, snapshot);
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        SQLiteDatabase db = getSugarContext().getSugarDb().getDB();
+        boolean written = false;
+        db.beginTransaction();
+        try {
+            for (Object entity : changed.keySet()) {
+                if (SugarRecord.update(entity) == -1) {
+                    throw new SQLiteException("Couldn't write " + entity.getClass().getSimpleName());
+                }
+            }
+            db.setTransactionSuccessful();
+            written = true;
+        } finally {
+            db.endTransaction();
+            SugarCache.onTransactionEnded();
+            if (!written) {
+                // The snapshots taken by the rolled back writes no longer match the rows
+                for (Map.Entry<Object, ContentValues> entry : changed.entrySet()) {
+                    if (entry.getValue() != null) {
+                        snapshots.put(entry.getKey(), entry.getValue());
+                    } else {
+                        snapshots.remove(entry.getKey());
+                    }
+                }
+            }
+        }
+        return changed.size();
+    }
+
+    /**
+     * Clears the session and unbinds it from its thread.
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("A session must be closed by the thread which opened it");
+        }
+        if (current.get() == this) {
+            current.remove();
+        }
+        identityMap.clear();
+    }
+
+    IdentityMap getIdentityMap() {
+        return identityMap;
+    }
+
+    /**
+     * Adds an entity just saved on the current thread to its session, if one is open.
+     */
+    static void onSaved(Object entity, long id) {
+        SugarSession session = current.get();
+        if (session == null || id == -1) {
+            return;
+        }
+        session.identityMap.put(entity, id);
+
+        // Lets flush tell whether the entity changed since
+        Map<Object, ContentValues> snapshots = getSugarContext().getSnapshots();
+        if (!snapshots.containsKey(entity)) {
+            snapshots.put(entity, EntitySnapshots.snapshotOf(entity, getSugarContext().getEntitiesMap()));
+        }
+    }
+
+    /**
+     * Removes a row just deleted on the current thread from its session, if one is open.
+     */
+    static void onDeleted(Class<?> type, long id) {
+        SugarSession session = current.get();
+        if (session != null) {
+            session.identityMap.remove(type, id);
+        }
+    }
+
+    /**
+     * Removes every entity of the class from the session of the current thread, if one is open,
+     * after some of its rows were deleted or updated by a single statement.
+     */
+    static void onWritten(Class<?> type) {
+        SugarSession session = current.get();
+        if (session != null) {
+            session.identityMap.removeAll(type);
+        }
+    }
+
+    private static Long getEntityId(Object entity) {
+        if (entity instanceof SugarRecord) {
+            return ((SugarRecord) entity).getId();
+        }
+        Field idField = EntityDescriptor.of(entity.getClass()).getIdField();
+        if (idField != null) {
+            return ReflectionUtil.getIdValue(idField, entity);
+        }
+        return getSugarContext().getEntitiesMap().get(entity);
+    }
+}
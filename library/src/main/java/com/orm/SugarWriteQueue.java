@@ -0,0 +1,336 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.orm.helper.ManifestHelper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Write-behind queue for SugarRecord writes. Callers enqueue saves, updates and deletes and get a
+ * Future back, while a single writer thread applies them in order, many at a time in a single
+ * transaction, once maxBatchSize writes are pending or the oldest one waited maxDelayMillis.
+ *
+ * Consecutive saves and updates of the same object which are still pending are coalesced into a
+ * single write of its state at the time it is written, so objects shouldn't be modified from
+ * another thread while the writer may be reading them.
+ *
+ * {@link #findById(Class, Long)} waits for the pending writes of the type before reading, so a
+ * caller always reads its own writes through it. Other reads, such as {@link SugarRecord#findById}
+ * or {@link com.orm.query.Select}, don't wait for the queue and see only the committed writes.
+ *
+ * If the writer thread is interrupted, the queue is closed and the Futures of the writes still
+ * pending fail with a {@link CancellationException}.
+ */
+public final class SugarWriteQueue {
+    private static final String LOG_TAG = "Sugar";
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 100L;
+
+    private enum Operation { SAVE, UPDATE, DELETE }
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Thread writer;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private final Map<Object, Entry> pendingWrites = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> pendingTypes = new HashMap<>();
+    private int inFlight;
+    private boolean flushRequested;
+    private boolean closed;
+
+    public SugarWriteQueue() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * @param maxBatchSize the number of pending writes which triggers a commit
+     * @param maxDelayMillis the longest time a write stays pending before it is committed
+     */
+    public SugarWriteQueue(int maxBatchSize, long maxDelayMillis) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive, was " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelayMillis * 1000000L;
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWriter();
+            }
+        }, "SugarWriteQueue");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues a {@link SugarRecord#save(Object)} of the object.
+     *
+     * @return a Future of the row id of the object
+     */
+    public Future<Long> save(Object object) {
+        return enqueue(Operation.SAVE, object);
+    }
+
+    /**
+     * Enqueues a {@link SugarRecord#update(Object)} of the object.
+     *
+     * @return a Future of the result of the update
+     */
+    public Future<Long> update(Object object) {
+        return enqueue(Operation.UPDATE, object);
+    }
+
+    /**
+     * Enqueues a {@link SugarRecord#delete(Object)} of the object.
+     *
+     * @return a Future of whether the row was deleted
+     */
+    public Future<Boolean> delete(Object object) {
+        return enqueue(Operation.DELETE, object);
+    }
+
+    /**
+     * Reads the entity once every write of its type enqueued so far has been committed.
+     * {@link SugarRecord#findById(Class, Long)} doesn't wait, and may miss the pending writes.
+     */
+    public <T> T findById(Class<T> type, Long id) throws InterruptedException {
+        synchronized (lock) {
+            while (pendingTypes.containsKey(type) && writer.isAlive()) {
+                flushRequested = true;
+                lock.notifyAll();
+                lock.wait();
+            }
+        }
+        return SugarRecord.findById(type, id);
+    }
+
+    /**
+     * Commits the pending writes and waits until they are all done.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (lock) {
+            while ((!pending.isEmpty() || inFlight > 0) && writer.isAlive()) {
+                flushRequested = true;
+                lock.notifyAll();
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Commits the pending writes and stops the writer thread. Writes can't be enqueued anymore.
+     */
+    public void close() throws InterruptedException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        writer.join();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> Future<V> enqueue(Operation operation, Object object) {
+        if (object == null) {
+            throw new IllegalArgumentException("object shouldn't be null");
+        }
+
+        Result<V> result = new Result<>();
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("SugarWriteQueue is closed");
+            }
+
+            Entry entry = pendingWrites.get(object);
+            if (entry != null && operation != Operation.DELETE) {
+                // The pending save or update writes the latest state of the object anyway
+                if (operation == Operation.SAVE) {
+                    entry.operation = Operation.SAVE;
+                }
+            } else {
+                entry = new Entry(operation, object, System.nanoTime());
+                pending.add(entry);
+                Integer count = pendingTypes.get(object.getClass());
+                pendingTypes.put(object.getClass(), count == null ? 1 : count + 1);
+                if (operation == Operation.DELETE) {
+                    pendingWrites.remove(object);
+                } else {
+                    pendingWrites.put(object, entry);
+                }
+            }
+            entry.results.add((Result<Object>) result);
+            lock.notifyAll();
+        }
+        return result;
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<Entry> batch;
+            synchronized (lock) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    if (pending.isEmpty()) {
+                        lock.notifyAll();
+                        return;
+                    }
+                    long deadline = pending.peek().enqueuedAt + maxDelayNanos;
+                    while (pending.size() < maxBatchSize && !flushRequested && !closed) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        lock.wait(remaining / 1000000L, (int) (remaining % 1000000L));
+                    }
+                } catch (InterruptedException e) {
+                    Log.e(LOG_TAG, "SugarWriteQueue writer interrupted, " + pending.size() + " writes cancelled");
+                    cancelPending();
+                    return;
+                }
+
+                batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+                while (!pending.isEmpty() && batch.size() < maxBatchSize) {
+                    Entry entry = pending.poll();
+                    if (pendingWrites.get(entry.object) == entry) {
+                        pendingWrites.remove(entry.object);
+                    }
+                    batch.add(entry);
+                }
+                inFlight = batch.size();
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                }
+            }
+
+            write(batch);
+
+            synchronized (lock) {
+                for (Entry entry : batch) {
+                    Class<?> type = entry.object.getClass();
+                    int count = pendingTypes.get(type) - 1;
+                    if (count == 0) {
+                        pendingTypes.remove(type);
+                    } else {
+                        pendingTypes.put(type, count);
+                    }
+                }
+                inFlight = 0;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Closes the queue and fails the Futures of the writes still pending, which are never written.
+     * Must be called holding the lock.
+     */
+    private void cancelPending() {
+        closed = true;
+        for (Entry entry : pending) {
+            for (Result<Object> result : entry.results) {
+                result.fail(new CancellationException("SugarWriteQueue writer interrupted"));
+            }
+        }
+        pending.clear();
+        pendingWrites.clear();
+        pendingTypes.clear();
+        flushRequested = false;
+        lock.notifyAll();
+    }
+
+    private void write(List<Entry> batch) {
+        SQLiteDatabase database = getSugarContext().getSugarDb().getDB();
+        Object[] values = new Object[batch.size()];
+        try {
+            database.beginTransaction();
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    Entry entry = batch.get(i);
+                    switch (entry.operation) {
+                        case SAVE:
+                            values[i] = SugarRecord.save(database, entry.object);
+                            break;
+                        case UPDATE:
+                            values[i] = SugarRecord.update(database, entry.object);
+                            break;
+                        default:
+                            values[i] = SugarRecord.delete(entry.object);
+                    }
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+                SugarCache.onTransactionEnded();
+            }
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "Error writing " + batch.size() + " queued objects, rolled back", e);
+            for (Entry entry : batch) {
+                for (Result<Object> result : entry.results) {
+                    result.fail(e);
+                }
+            }
+            return;
+        }
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(LOG_TAG, "SugarWriteQueue committed " + batch.size() + " writes");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            for (Result<Object> result : batch.get(i).results) {
+                result.succeed(values[i]);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Object object;
+        private final long enqueuedAt;
+        private final List<Result<Object>> results = new ArrayList<>(1);
+        private Operation operation;
+
+        Entry(Operation operation, Object object, long enqueuedAt) {
+            this.operation = operation;
+            this.object = object;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static final class Result<V> extends FutureTask<V> {
+        private static final Callable<Object> NOTHING = new Callable<Object>() {
+            @Override
+            public Object call() {
+                return null;
+            }
+        };
+
+        @SuppressWarnings("unchecked")
+        Result() {
+            super((Callable<V>) NOTHING);
+        }
+
+        void succeed(V value) {
+            set(value);
+        }
+
+        void fail(Throwable throwable) {
+            setException(throwable);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Keeps the rows of the entity in the process-wide {@link com.orm.SugarCache}, which suits
+ * reference tables read far more often than they are written.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cacheable {
+
+    /**
+     * The most rows kept, the least recently used being evicted first.
+     */
+    int maxSize() default 1000;
+
+    /**
+     * Keeps the rows through soft references, which the garbage collector clears when memory runs
+     * low.
+     */
+    boolean softReferences() default false;
+}
@@ -0,0 +1,20 @@
+package com.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how deep below the results of a query an entity field or @OneToMany list is followed.
+ * The field of a result is at depth 1, the field of the entity it references at depth 2, and so
+ * on. Beyond the limit an entity field is set to a stub holding only the id of the referenced
+ * entity, and a list to a {@link com.orm.util.LazyList}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FetchDepth {
+    int UNLIMITED = Integer.MAX_VALUE;
+
+    int value();
+}
@@ -0,0 +1,9 @@
+package com.orm.annotation;
+
+/**
+ * When the elements of a @OneToMany list are read: with the owner, or on the first access to the
+ * list.
+ */
+public enum FetchType {
+    EAGER, LAZY
+}
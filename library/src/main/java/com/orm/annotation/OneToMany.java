@@ -13,4 +13,10 @@ import java.lang.annotation.Target;
 @Target(ElementType.FIELD)
 public @interface OneToMany {
     String targetField();
+
+    /**
+     * LAZY fills the field with a {@link com.orm.util.LazyList} which reads the elements the
+     * first time it is accessed.
+     */
+    FetchType fetch() default FetchType.EAGER;
 }
@@ -0,0 +1,43 @@
+package com.orm.binder;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+/**
+ * Conversions shared by the generated {@link EntityBinder} classes. They match the ones applied by
+ * {@link com.orm.util.ReflectionUtil#setFieldValueFromCursor}.
+ */
+public final class BinderSupport {
+
+    //Prevent instantiation
+    private BinderSupport() { }
+
+    public static String nullIfNullString(String value) {
+        return "null".equals(value) ? null : value;
+    }
+
+    public static BigDecimal toBigDecimal(String value) {
+        return (value == null || value.equals("null")) ? null : new BigDecimal(value);
+    }
+
+    public static Calendar toCalendar(long timeInMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeInMillis);
+        return calendar;
+    }
+
+    public static byte[] emptyIfNull(byte[] value) {
+        return value == null ? "".getBytes() : value;
+    }
+
+    /**
+     * @return the constant of the given name, or null if the enum has no such constant
+     */
+    public static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.orm.binder;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Reads and writes the plain columns of an entity without reflection.
+ *
+ * Implementations are generated at compile time by the Sugar annotation processor, one per entity
+ * class, and are looked up by {@link EntityBinders}. A binder only covers the fields it can reach
+ * directly or through accessors; every other field, as well as relations, keeps going through
+ * {@link com.orm.util.ReflectionUtil}.
+ *
+ * @param <T> the entity class
+ */
+public interface EntityBinder<T> {
+
+    /**
+     * @return the names of the columns handled by this binder. The indexes of this array are the
+     *         ones used by the position and index arrays of the other methods. The returned array
+     *         is shared and must not be modified
+     */
+    String[] getColumnNames();
+
+    /**
+     * Binds the values of the handled columns to a statement.
+     *
+     * @param statement the statement to bind the values to
+     * @param positions the 1-based bind position of every handled column, or 0 to skip a column
+     * @param entity the entity to read the values from
+     */
+    void bindToStatement(SQLiteStatement statement, int[] positions, T entity);
+
+    /**
+     * Sets the fields of the handled columns from the current row of a cursor.
+     *
+     * @param cursor the cursor positioned on the row to read
+     * @param columnIndexes the cursor column index of every handled column, or -1 to skip a column
+     * @param entity the entity to write the values to
+     */
+    void readFromCursor(Cursor cursor, int[] columnIndexes, T entity);
+
+    /**
+     * Puts the values of the handled columns, converted as they are written, in a ContentValues.
+     *
+     * @param values the values to put the columns in
+     * @param columns whether to put every handled column
+     * @param entity the entity to read the values from
+     */
+    void putValues(ContentValues values, boolean[] columns, T entity);
+}
@@ -0,0 +1,49 @@
+package com.orm.binder;
+
+import android.util.Log;
+
+import com.orm.helper.ManifestHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Looks up the {@link EntityBinder} generated for an entity class. The result of the lookup,
+ * including the absence of a binder, is cached per class.
+ */
+public final class EntityBinders {
+    public static final String BINDER_SUFFIX = "_SugarBinder";
+    private static final String LOG_TAG = "Sugar";
+
+    private static final Map<Class<?>, EntityBinder<?>> binders = new HashMap<>();
+
+    //Prevent instantiation
+    private EntityBinders() { }
+
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> EntityBinder<T> getBinder(Class<T> type) {
+        if (binders.containsKey(type)) {
+            return (EntityBinder<T>) binders.get(type);
+        }
+
+        EntityBinder<T> binder = null;
+        try {
+            Class<?> binderClass = Class.forName(type.getName() + BINDER_SUFFIX, true, type.getClassLoader());
+            binder = (EntityBinder<T>) binderClass.getDeclaredConstructor().newInstance();
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.d(LOG_TAG, "Using generated binder for " + type.getSimpleName());
+            }
+        } catch (ClassNotFoundException e) {
+            // no generated binder, fields are accessed through reflection
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "Couldn't instantiate binder of " + type.getName(), e);
+        }
+
+        binders.put(type, binder);
+        return binder;
+    }
+
+    public static synchronized void clearCache() {
+        binders.clear();
+    }
+}
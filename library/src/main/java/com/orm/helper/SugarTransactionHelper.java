@@ -3,6 +3,8 @@ package com.orm.helper;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
+import com.orm.SugarCache;
+
 import static com.orm.SugarContext.getSugarContext;
 
 public final class SugarTransactionHelper {
@@ -32,6 +34,7 @@ public final class SugarTransactionHelper {
             }
         } finally {
             database.endTransaction();
+            SugarCache.onTransactionEnded();
         }
     }
 
@@ -1,16 +1,28 @@
 package com.orm.inflater;
 
+import android.content.ContentValues;
 import android.database.Cursor;
-import com.orm.SugarRecord;
+import com.orm.binder.EntityBinder;
+import com.orm.annotation.FetchType;
+import com.orm.binder.EntityBinders;
 import com.orm.inflater.field.*;
-import com.orm.util.ReflectionUtil;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.EntitySnapshots;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Created by Łukasz Wesołowski on 03.08.2016.
+ *
+ * The first row read from a cursor resolves a plan of the cursor: the column index of the id and
+ * of the fields read by a generated binder, and one {@link FieldInflater} per remaining field. The
+ * following rows of the same cursor reuse it, so reusing an inflater for every row of a cursor
+ * avoids any column name lookup and allocation per row.
  */
 public class EntityInflater {
     private Cursor cursor;
@@ -18,9 +30,22 @@ public class EntityInflater {
     private Object relationObject;
     private String relationFieldName;
     private Map<Object, Long> entitiesMap;
+    private Map<Object, ContentValues> snapshots;
+    private RelationLoader relationLoader;
+    private FetchType fetchType;
+
+    private Class<?> plannedType;
+    private int idColumnIndex;
+    private EntityBinder<Object> binder;
+    private int[] binderColumnIndexes;
+    private FieldInflater[] fieldInflaters;
+    private RelationEntityFieldInflater relationFieldInflater;
 
     public EntityInflater withCursor(Cursor cursor) {
-        this.cursor = cursor;
+        if (this.cursor != cursor) {
+            this.cursor = cursor;
+            this.plannedType = null;
+        }
         return this;
     }
 
@@ -31,45 +56,118 @@ public class EntityInflater {
 
     public EntityInflater withRelationObject(Object relationObject) {
         this.relationObject = relationObject;
+        if (relationFieldInflater != null) {
+            relationFieldInflater.setRelationObject(relationObject);
+        }
         return this;
     }
 
     public EntityInflater withRelationFieldName(String relationFieldName) {
         this.relationFieldName = relationFieldName;
+        this.plannedType = null;
         return this;
     }
 
+    /**
+     * @param entitiesMap the map to register the ids of the inflated objects in, or null to leave
+     *                    them untracked
+     */
     public EntityInflater withEntitiesMap(Map<Object, Long> entitiesMap) {
         this.entitiesMap = entitiesMap;
         return this;
     }
 
+    public EntityInflater withSnapshots(Map<Object, ContentValues> snapshots) {
+        this.snapshots = snapshots;
+        return this;
+    }
+
+    /**
+     * Defers the lookup of the entities and lists related to the rows, and the snapshots of the
+     * rows, to the loader, which the caller then runs once every row of the result set is inflated.
+     */
+    public EntityInflater withRelationLoader(RelationLoader relationLoader) {
+        this.relationLoader = relationLoader;
+        this.plannedType = null;
+        return this;
+    }
+
+    /**
+     * Fetches every @OneToMany list the given way whatever its annotation says, or as annotated if
+     * null.
+     */
+    public EntityInflater withFetchType(FetchType fetchType) {
+        this.fetchType = fetchType;
+        this.plannedType = null;
+        return this;
+    }
+
     public void inflate() {
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
-        Long objectId = cursor.getLong(cursor.getColumnIndex(("ID")));
-        if (!entitiesMap.containsKey(object)) {
+        if (plannedType != object.getClass()) {
+            plan(object.getClass());
+        }
+
+        Long objectId = cursor.getLong(idColumnIndex);
+        if (entitiesMap != null && !entitiesMap.containsKey(object)) {
             entitiesMap.put(object, objectId);
         }
+        if (relationLoader != null) {
+            relationLoader.addEntity(object, objectId);
+        }
 
-        FieldInflater fieldInflater;
+        if (binder != null) {
+            binder.readFromCursor(cursor, binderColumnIndexes, object);
+        }
+        for (FieldInflater fieldInflater : fieldInflaters) {
+            fieldInflater.inflate(object);
+        }
+
+        if (snapshots != null) {
+            if (relationLoader != null) {
+                relationLoader.addSnapshot(object);
+            } else {
+                snapshots.put(object, EntitySnapshots.snapshotOf(object, entitiesMap));
+            }
+        }
+    }
 
-        for (Field field : columns) {
-            field.setAccessible(true);
+    @SuppressWarnings("unchecked")
+    private void plan(Class<?> type) {
+        idColumnIndex = cursor.getColumnIndex("ID");
+
+        binder = (EntityBinder<Object>) EntityBinders.getBinder(type);
+        List<String> boundColumns = Collections.emptyList();
+        if (binder != null) {
+            String[] columnNames = binder.getColumnNames();
+            binderColumnIndexes = new int[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                binderColumnIndexes[i] = cursor.getColumnIndex(columnNames[i]);
+            }
+            boundColumns = Arrays.asList(columnNames);
+        }
+
+        List<FieldInflater> inflaters = new ArrayList<>();
+        relationFieldInflater = null;
+        for (EntityDescriptor.Property property : EntityDescriptor.of(type).getProperties()) {
+            Field field = property.getField();
             Class<?> fieldType = field.getType();
 
-            if (SugarRecord.isSugarEntity(fieldType)) {
+            if (property.getCodec().isEntity()) {
                 if (field.getName().equals(relationFieldName)) {
-                    fieldInflater = new RelationEntityFieldInflater(field, cursor, object, fieldType, relationObject);
+                    relationFieldInflater = new RelationEntityFieldInflater(field, cursor, null, fieldType, relationObject);
+                    inflaters.add(relationFieldInflater);
                 } else {
-                    fieldInflater = new EntityFieldInflater(field, cursor, object, fieldType);
+                    inflaters.add(new EntityFieldInflater(field, cursor, null, fieldType, relationLoader));
                 }
-            } else if (fieldType.equals(List.class)) {
-                fieldInflater = new ListFieldInflater(field, cursor, object, fieldType);
-            } else {
-                fieldInflater = new DefaultFieldInflater(field, cursor, object, fieldType);
+            } else if (property.getCodec() == EntityDescriptor.Codec.LIST) {
+                boolean lazy = fetchType != null ? fetchType == FetchType.LAZY : property.isLazy();
+                inflaters.add(new ListFieldInflater(field, cursor, null, fieldType, relationLoader, lazy));
+            } else if (!boundColumns.contains(property.getColumnName())) {
+                inflaters.add(new DefaultFieldInflater(field, cursor, null, fieldType));
             }
-
-            fieldInflater.inflate();
         }
+
+        fieldInflaters = inflaters.toArray(new FieldInflater[inflaters.size()]);
+        plannedType = type;
     }
 }
@@ -0,0 +1,69 @@
+package com.orm.inflater;
+
+import com.orm.annotation.FetchDepth;
+import com.orm.annotation.FetchType;
+
+/**
+ * How the results of a query are read: the way every @OneToMany list is fetched, or null to fetch
+ * each as annotated, the depth below which relations are left as stubs, whether the rows are read
+ * through the {@link com.orm.SugarQueryCache}, and whether the entities are tracked for later
+ * writes. Immutable; each with method returns a copy.
+ */
+public final class FetchPlan {
+    public static final FetchPlan DEFAULT = new FetchPlan(null, FetchDepth.UNLIMITED, false, false);
+
+    private final FetchType fetchType;
+    private final int maxDepth;
+    private final boolean resultCached;
+    private final boolean readOnly;
+
+    private FetchPlan(FetchType fetchType, int maxDepth, boolean resultCached, boolean readOnly) {
+        this.fetchType = fetchType;
+        this.maxDepth = maxDepth;
+        this.resultCached = resultCached;
+        this.readOnly = readOnly;
+    }
+
+    public FetchPlan withFetchType(FetchType fetchType) {
+        return new FetchPlan(fetchType, maxDepth, resultCached, readOnly);
+    }
+
+    /**
+     * @param maxDepth the deepest level of relations to read, 0 reading none, as with
+     *                 {@link FetchDepth}
+     */
+    public FetchPlan withMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative");
+        }
+        return new FetchPlan(fetchType, maxDepth, resultCached, readOnly);
+    }
+
+    public FetchPlan withResultCache(boolean resultCached) {
+        return new FetchPlan(fetchType, maxDepth, resultCached, readOnly);
+    }
+
+    /**
+     * @param readOnly true to leave the entities out of the entities map, the change tracking
+     *                 snapshots and the current session
+     */
+    public FetchPlan withReadOnly(boolean readOnly) {
+        return new FetchPlan(fetchType, maxDepth, resultCached, readOnly);
+    }
+
+    public FetchType getFetchType() {
+        return fetchType;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public boolean isResultCached() {
+        return resultCached;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+}
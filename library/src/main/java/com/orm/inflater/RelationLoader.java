@@ -0,0 +1,371 @@
+package com.orm.inflater;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.util.Log;
+
+import com.orm.SugarCache;
+import com.orm.annotation.FetchDepth;
+import com.orm.helper.NamingHelper;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.EntitySnapshots;
+import com.orm.util.EntityStatements;
+import com.orm.util.IdentityMap;
+import com.orm.util.LazyList;
+import com.orm.util.LongMap;
+import com.orm.util.QueryBuilder;
+import com.orm.util.ReflectionUtil;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Resolves the relations of a whole result set at once. While the rows are inflated, the id each
+ * entity field references and the id of each owner of a @OneToMany list are only collected;
+ * {@link #load()} then reads the referenced entities with one ID IN (...) query per type, and the
+ * list elements with one TARGET IN (...) query per list field, each chunk of ids at a time. The
+ * relations of the entities read are in turn loaded the same way, one level at a time.
+ *
+ * The loaders of a query share an identity map of the entities already inflated, so an entity is
+ * read once per query and cycles of relations end where they meet an entity already read. Past
+ * the maximum depth of the query or of the relation, entity fields get stubs holding only the id
+ * and lists get a {@link LazyList}.
+ *
+ * The snapshots of the inflated objects are taken once their relations are set.
+ */
+public final class RelationLoader {
+    private static final String LOG_TAG = "RelationLoader";
+
+    private final Map<Object, Long> entitiesMap;
+    private final Map<Object, ContentValues> snapshots;
+    private final int depth;
+    private final int maxDepth;
+    private final IdentityMap inflated;
+    private final Map<Class<?>, Set<Long>> ids = new LinkedHashMap<>();
+    private final List<Reference> references = new ArrayList<>();
+    private final Map<Field, OneToManyFetch> oneToManyFetches = new LinkedHashMap<>();
+    private final List<Object> toSnapshot = new ArrayList<>();
+
+    private static final class Reference {
+        private final Object object;
+        private final Field field;
+        private final long id;
+
+        Reference(Object object, Field field, long id) {
+            this.object = object;
+            this.field = field;
+            this.id = id;
+        }
+    }
+
+    private static final class OneToManyFetch {
+        private final EntityDescriptor.Property property;
+        private final LongMap<Object> owners = new LongMap<>();
+        private final List<Long> ownerIds = new ArrayList<>();
+        private final List<Reference> lists = new ArrayList<>();
+
+        OneToManyFetch(EntityDescriptor.Property property) {
+            this.property = property;
+        }
+    }
+
+    /**
+     * @param snapshots the snapshots to put the inflated objects in once loaded, or null
+     */
+    public RelationLoader(Map<Object, Long> entitiesMap, Map<Object, ContentValues> snapshots) {
+        this(entitiesMap, snapshots, FetchDepth.UNLIMITED);
+    }
+
+    /**
+     * @param snapshots the snapshots to put the inflated objects in once loaded, or null
+     * @param maxDepth  the deepest level of relations to read below the inflated objects
+     */
+    public RelationLoader(Map<Object, Long> entitiesMap, Map<Object, ContentValues> snapshots, int maxDepth) {
+        this(entitiesMap, snapshots, maxDepth, new IdentityMap());
+    }
+
+    /**
+     * @param entitiesMap the map to register the ids of the inflated objects in, or null
+     * @param snapshots   the snapshots to put the inflated objects in once loaded, or null
+     * @param maxDepth    the deepest level of relations to read below the inflated objects
+     * @param identityMap the entities already inflated, to which the entities inflated are added
+     */
+    public RelationLoader(Map<Object, Long> entitiesMap, Map<Object, ContentValues> snapshots, int maxDepth, IdentityMap identityMap) {
+        this(entitiesMap, snapshots, 0, maxDepth, identityMap);
+    }
+
+    private RelationLoader(Map<Object, Long> entitiesMap, Map<Object, ContentValues> snapshots, int depth,
+                           int maxDepth, IdentityMap inflated) {
+        this.entitiesMap = entitiesMap;
+        this.snapshots = snapshots;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.inflated = inflated;
+    }
+
+    /**
+     * Records an entity inflated with this loader, so that the relations to it met during the
+     * query reuse it instead of reading it again.
+     */
+    public void addEntity(Object entity, long id) {
+        inflated.put(entity, id);
+    }
+
+    /**
+     * Records that the field of the object references the entity of the given type and id, to be
+     * set by {@link #load()}. The field is set right away if the entity was already inflated by
+     * the query, or to a stub if the field is past its fetch depth.
+     */
+    public void add(Object object, Field field, Class<?> type, long id) {
+        Object entity = getInflated(type, id);
+        if (entity != null) {
+            set(object, field, entity);
+            return;
+        }
+        if (!follows(field)) {
+            set(object, field, newStub(type, id));
+            return;
+        }
+
+        Set<Long> typeIds = ids.get(type);
+        if (typeIds == null) {
+            typeIds = new LinkedHashSet<>();
+            ids.put(type, typeIds);
+        }
+        typeIds.add(id);
+        references.add(new Reference(object, field, id));
+    }
+
+    /**
+     * Records that the @OneToMany list field of the object, whose id is given, is to be set by
+     * {@link #load()}. The field is set to a {@link LazyList} right away if it is past its fetch
+     * depth.
+     */
+    public void addOneToMany(Object owner, Field field, long ownerId) {
+        EntityDescriptor.Property property = EntityDescriptor.getProperty(field);
+        if (!follows(field)) {
+            set(owner, field, new LazyList<>(property.getElementType(), property.getTargetField(), owner, ownerId));
+            return;
+        }
+
+        OneToManyFetch fetch = oneToManyFetches.get(field);
+        if (fetch == null) {
+            fetch = new OneToManyFetch(property);
+            oneToManyFetches.put(field, fetch);
+        }
+        if (!fetch.owners.containsKey(ownerId)) {
+            fetch.owners.put(ownerId, owner);
+            fetch.ownerIds.add(ownerId);
+        }
+        fetch.lists.add(new Reference(owner, field, ownerId));
+    }
+
+    /**
+     * Records that the snapshot of the object is to be taken by {@link #load()}.
+     */
+    void addSnapshot(Object object) {
+        toSnapshot.add(object);
+    }
+
+    /**
+     * Reads the related entities and sets the fields recorded so far.
+     */
+    public void load() {
+        if (ids.isEmpty() && references.isEmpty() && oneToManyFetches.isEmpty() && toSnapshot.isEmpty()) {
+            // Nothing was recorded at this level, so there is no deeper level either
+            return;
+        }
+
+        RelationLoader next = new RelationLoader(entitiesMap, snapshots, depth + 1, maxDepth, inflated);
+
+        for (Map.Entry<Class<?>, Set<Long>> entry : ids.entrySet()) {
+            List<Long> missing = new ArrayList<>();
+            for (Long id : entry.getValue()) {
+                if (getInflated(entry.getKey(), id) == null) {
+                    missing.add(id);
+                }
+            }
+            findByIds(entry.getKey(), missing, next);
+        }
+        for (Reference reference : references) {
+            set(reference.object, reference.field, getInflated(reference.field.getType(), reference.id));
+        }
+
+        for (OneToManyFetch fetch : oneToManyFetches.values()) {
+            LongMap<List<Object>> elements = findElements(fetch, next);
+            for (Reference list : fetch.lists) {
+                List<Object> owned = elements.get(list.id);
+                set(list.object, list.field, owned != null ? owned : new ArrayList<>());
+            }
+        }
+
+        next.load();
+
+        if (snapshots != null) {
+            for (Object object : toSnapshot) {
+                snapshots.put(object, EntitySnapshots.snapshotOf(object, entitiesMap));
+            }
+        }
+
+        ids.clear();
+        references.clear();
+        oneToManyFetches.clear();
+        toSnapshot.clear();
+    }
+
+    /**
+     * @return true if the relation is read at the depth of this loader
+     */
+    private boolean follows(Field field) {
+        return depth < Math.min(maxDepth, EntityDescriptor.getProperty(field).getFetchDepth());
+    }
+
+    private Object getInflated(Class<?> type, long id) {
+        return inflated.get(type, id);
+    }
+
+    /**
+     * Inflates the entities of the given ids, from the {@link SugarCache} for those whose row is
+     * cached, which register themselves in the identity map.
+     */
+    private void findByIds(Class<?> type, List<Long> ids, RelationLoader next) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        EntityInflater inflater = new EntityInflater()
+                .withEntitiesMap(entitiesMap)
+                .withSnapshots(snapshots)
+                .withRelationLoader(next);
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            List<Long> misses = new ArrayList<>();
+            Cursor cached = SugarCache.getRows(type, ids, misses);
+            if (cached != null) {
+                inflateAll(inflater, constructor, cached, false);
+            }
+            for (int start = 0; start < misses.size(); start += EntityStatements.MAX_VARIABLES) {
+                inflateAll(inflater, constructor, query(type, "ID", misses.subList(start, Math.min(start + EntityStatements.MAX_VARIABLES, misses.size()))), true);
+            }
+        } catch (Exception e) {
+            Log.e(LOG_TAG, String.format("Error while inflating %s", type), e);
+        }
+    }
+
+    /**
+     * Inflates every row of the cursor, then closes it.
+     *
+     * @param cacheRows true to put the rows read in the {@link SugarCache}
+     */
+    private static void inflateAll(EntityInflater inflater, Constructor<?> constructor, Cursor cursor, boolean cacheRows) throws Exception {
+        try {
+            SugarCache.RowWriter cacheWriter = cacheRows
+                    ? SugarCache.newRowWriter(constructor.getDeclaringClass(), cursor)
+                    : null;
+            inflater.withCursor(cursor);
+            while (cursor.moveToNext()) {
+                if (cacheWriter != null) {
+                    cacheWriter.write(cursor);
+                }
+                inflater.withObject(constructor.newInstance()).inflate();
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the elements of the lists by owner id, their target field pointing to the owner
+     */
+    private LongMap<List<Object>> findElements(OneToManyFetch fetch, RelationLoader next) {
+        LongMap<List<Object>> elements = new LongMap<>(fetch.ownerIds.size());
+        Class<?> elementType = fetch.property.getElementType();
+        String targetField = fetch.property.getTargetField();
+        String targetColumn = NamingHelper.toSQLNameDefault(targetField);
+
+        EntityInflater inflater = new EntityInflater()
+                .withEntitiesMap(entitiesMap)
+                .withSnapshots(snapshots)
+                .withRelationLoader(next)
+                .withRelationFieldName(targetField);
+
+        try {
+            Constructor<?> constructor = elementType.getDeclaredConstructor();
+            for (int start = 0; start < fetch.ownerIds.size(); start += EntityStatements.MAX_VARIABLES) {
+                Cursor cursor = query(elementType, targetColumn,
+                        fetch.ownerIds.subList(start, Math.min(start + EntityStatements.MAX_VARIABLES, fetch.ownerIds.size())));
+                try {
+                    int idIndex = cursor.getColumnIndex("ID");
+                    int targetIndex = cursor.getColumnIndex(targetColumn);
+                    inflater.withCursor(cursor);
+                    while (cursor.moveToNext()) {
+                        long ownerId = cursor.getLong(targetIndex);
+                        Object element = getInflated(elementType, cursor.getLong(idIndex));
+                        if (element == null) {
+                            element = constructor.newInstance();
+                            inflater.withRelationObject(fetch.owners.get(ownerId)).withObject(element).inflate();
+                        }
+
+                        List<Object> owned = elements.get(ownerId);
+                        if (owned == null) {
+                            owned = new ArrayList<>();
+                            elements.put(ownerId, owned);
+                        }
+                        owned.add(element);
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(LOG_TAG, String.format("Error while inflating list field %s", fetch.property.getField()), e);
+        }
+
+        return elements;
+    }
+
+    private static Cursor query(Class<?> type, String column, List<Long> ids) {
+        String[] args = new String[ids.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = String.valueOf(ids.get(i));
+        }
+        return getSugarContext().getSugarDb().getDB().query(EntityDescriptor.of(type).getTableName(), null,
+                column + " IN (" + QueryBuilder.generatePlaceholders(args.length) + ")", args,
+                null, null, null, null);
+    }
+
+    /**
+     * @return an entity holding only the given id, which is not read from the database, and is
+     *         registered as a stub so that it is never written back
+     */
+    private Object newStub(Class<?> type, long id) {
+        try {
+            Object stub = type.getDeclaredConstructor().newInstance();
+            ReflectionUtil.setFieldValueForId(stub, id);
+            if (entitiesMap != null) {
+                entitiesMap.put(stub, id);
+            }
+            getSugarContext().getStubs().add(stub);
+            return stub;
+        } catch (Exception e) {
+            Log.e(LOG_TAG, String.format("Error while creating a stub of %s", type), e);
+            return null;
+        }
+    }
+
+    private static void set(Object object, Field field, Object value) {
+        try {
+            field.set(object, value);
+        } catch (IllegalAccessException e) {
+            Log.e(LOG_TAG, String.format("Error while inflating field %s", field), e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.orm.inflater.field;
 
 import android.database.Cursor;
+import com.orm.util.EntityDescriptor;
 import com.orm.util.ReflectionUtil;
 
 import java.lang.reflect.Field;
@@ -9,13 +10,20 @@ import java.lang.reflect.Field;
  * Created by Łukasz Wesołowski on 03.08.2016.
  */
 public class DefaultFieldInflater extends FieldInflater {
+    private final EntityDescriptor.Property property;
 
     public DefaultFieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType) {
         super(field, cursor, object, fieldType);
+        this.property = EntityDescriptor.getProperty(field);
     }
 
     @Override
     public void inflate() {
-        ReflectionUtil.setFieldValueFromCursor(cursor, field, object);
+        int columnIndex = getColumnIndex(property.getColumnName());
+        if (columnIndex < 0) {
+            ReflectionUtil.setFieldValueFromCursor(cursor, property, object);
+        } else {
+            ReflectionUtil.setFieldValueFromCursor(cursor, columnIndex, property, object);
+        }
     }
 }
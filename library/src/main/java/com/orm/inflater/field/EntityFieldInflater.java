@@ -3,7 +3,8 @@ package com.orm.inflater.field;
 import android.database.Cursor;
 import android.util.Log;
 import com.orm.SugarRecord;
-import com.orm.helper.NamingHelper;
+import com.orm.inflater.RelationLoader;
+import com.orm.util.EntityDescriptor;
 
 import java.lang.reflect.Field;
 
@@ -13,14 +14,31 @@ import java.lang.reflect.Field;
 public class EntityFieldInflater extends FieldInflater {
     private static final String LOG_TAG = "EntityFieldInflater";
 
+    private final String columnName;
+    private final RelationLoader relationLoader;
+
     public EntityFieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType) {
+        this(field, cursor, object, fieldType, null);
+    }
+
+    /**
+     * @param relationLoader the loader to defer the lookup of the referenced entity to, or null
+     *                       to find it right away
+     */
+    public EntityFieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType, RelationLoader relationLoader) {
         super(field, cursor, object, fieldType);
+        this.columnName = EntityDescriptor.getProperty(field).getColumnName();
+        this.relationLoader = relationLoader;
     }
 
     @Override
     public void inflate() {
         try {
-            long id = cursor.getLong(cursor.getColumnIndex(NamingHelper.toColumnName(field)));
+            long id = cursor.getLong(getColumnIndex(columnName));
+            if (id > 0 && relationLoader != null) {
+                relationLoader.add(object, field, fieldType, id);
+                return;
+            }
             field.set(object, (id > 0) ? SugarRecord.findById(fieldType, id) : null);
         } catch (IllegalAccessException e) {
             Log.e(LOG_TAG, String.format("Error while inflating entity field %s", field), e);
@@ -12,6 +12,7 @@ public abstract class FieldInflater {
     protected Cursor cursor;
     protected Object object;
     protected Class<?> fieldType;
+    private int columnIndex = -1;
 
     public FieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType) {
         this.field = field;
@@ -21,4 +22,23 @@ public abstract class FieldInflater {
     }
 
     public abstract void inflate();
+
+    /**
+     * Inflates the field of another object from the current row, so that a single inflater per
+     * field serves every row of the cursor.
+     */
+    public void inflate(Object object) {
+        this.object = object;
+        inflate();
+    }
+
+    /**
+     * @return the index of the column in the cursor, looked up on the first row only
+     */
+    protected int getColumnIndex(String columnName) {
+        if (columnIndex < 0) {
+            columnIndex = cursor.getColumnIndex(columnName);
+        }
+        return columnIndex;
+    }
 }
@@ -3,7 +3,9 @@ package com.orm.inflater.field;
 import android.database.Cursor;
 import android.util.Log;
 import com.orm.SugarRecord;
-import com.orm.annotation.OneToMany;
+import com.orm.inflater.RelationLoader;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.LazyList;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
@@ -14,20 +16,47 @@ import java.lang.reflect.ParameterizedType;
 public class ListFieldInflater extends FieldInflater {
     private static final String LOG_TAG = "ListFieldInflater";
 
+    private final EntityDescriptor.Property property;
+    private final RelationLoader relationLoader;
+    private final boolean lazy;
+
     public ListFieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType) {
+        this(field, cursor, object, fieldType, null);
+    }
+
+    public ListFieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType, RelationLoader relationLoader) {
+        this(field, cursor, object, fieldType, relationLoader, EntityDescriptor.getProperty(field).isLazy());
+    }
+
+    /**
+     * @param relationLoader the loader to defer the lookup of the list elements to, or null to
+     *                       find them right away
+     * @param lazy           true to set a {@link LazyList} reading the elements on first access
+     */
+    public ListFieldInflater(Field field, Cursor cursor, Object object, Class<?> fieldType, RelationLoader relationLoader, boolean lazy) {
         super(field, cursor, object, fieldType);
+        this.property = EntityDescriptor.getProperty(field);
+        this.relationLoader = relationLoader;
+        this.lazy = lazy;
     }
 
     @Override
     public void inflate() {
-        if (field.isAnnotationPresent(OneToMany.class)) {
+        if (property.isOneToMany()) {
             try {
-                Long objectId = cursor.getLong(cursor.getColumnIndex(("ID")));
+                Long objectId = cursor.getLong(getColumnIndex("ID"));
+                if (lazy && property.getElementType() != null) {
+                    field.set(object, new LazyList<>(property.getElementType(), property.getTargetField(), object, objectId));
+                    return;
+                }
+                if (relationLoader != null && property.getElementType() != null) {
+                    relationLoader.addOneToMany(object, field, objectId);
+                    return;
+                }
 
                 ParameterizedType genericListType = (ParameterizedType) field.getGenericType();
                 Class<?> genericListClass = (Class<?>) genericListType.getActualTypeArguments()[0];
-                String targetName = field.getAnnotation(OneToMany.class).targetField();
-                field.set(object, SugarRecord.findOneToMany(genericListClass, targetName, object, objectId));
+                field.set(object, SugarRecord.findOneToMany(genericListClass, property.getTargetField(), object, objectId));
             } catch (IllegalAccessException e) {
                 Log.e(LOG_TAG, String.format("Error while inflating list field %s", field), e);
             }
@@ -18,6 +18,10 @@ public class RelationEntityFieldInflater extends EntityFieldInflater {
         this.relationObject = relationObject;
     }
 
+    public void setRelationObject(Object relationObject) {
+        this.relationObject = relationObject;
+    }
+
     @Override
     public void inflate() {
         try {
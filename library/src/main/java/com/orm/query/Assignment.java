@@ -0,0 +1,48 @@
+package com.orm.query;
+
+/**
+ * A column set by {@link Select#update(Assignment...)}, to a value or by an increment.
+ */
+public final class Assignment {
+    private final String column;
+    private final String expression;
+    private final Object value;
+
+    private Assignment(String column, String expression, Object value) {
+        this.column = column;
+        this.expression = expression;
+        this.value = value;
+    }
+
+    /**
+     * Sets the column to the value, converted as {@link Condition} values are.
+     */
+    public static Assignment set(String column, Object value) {
+        return new Assignment(column, "?", Condition.toColumnValue(value));
+    }
+
+    /**
+     * Adds the amount to the column; a null column stays null.
+     */
+    public static Assignment increment(String column, Number amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("The amount must not be null");
+        }
+        return new Assignment(column, column + " + ?", amount);
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the value bound to the parameter of the assignment
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    String toSql() {
+        return column + " = " + expression;
+    }
+}
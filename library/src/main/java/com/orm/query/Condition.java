@@ -1,6 +1,16 @@
 package com.orm.query;
 
+import com.orm.Ref;
 import com.orm.SugarRecord;
+import com.orm.annotation.Table;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.util.Calendar;
+import java.util.Date;
+
+import static com.orm.SugarContext.getSugarContext;
 
 public class Condition {
 
@@ -53,12 +63,14 @@ public class Condition {
     }
 
     public Condition like(Object value) {
+        requireValue(value);
         setValue(value);
         check = Check.LIKE;
         return this;
     }
 
     public Condition notLike(Object value) {
+        requireValue(value);
         setValue(value);
         check = Check.NOT_LIKE;
         return this;
@@ -74,12 +86,14 @@ public class Condition {
     }
 
     public Condition gt(Object value) {
+        requireValue(value);
         setValue(value);
         check = Check.GREATER_THAN;
         return this;
     }
 
     public Condition lt(Object value) {
+        requireValue(value);
         setValue(value);
         check = Check.LESSER_THAN;
         return this;
@@ -101,6 +115,10 @@ public class Condition {
         return property;
     }
 
+    /**
+     * @return the value as it is stored in its column: dates as epoch millis, booleans as 1 or 0,
+     *         enums by name and entities by id
+     */
     public Object getValue() {
         return value;
     }
@@ -113,12 +131,43 @@ public class Condition {
         return check.getSymbol();
     }
 
+    /**
+     * Only {@link #eq(Object)} and {@link #notEq(Object)} accept null, as IS NULL and IS NOT NULL.
+     */
+    private void requireValue(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value compared to " + property + " must not be null");
+        }
+    }
+
     private void setValue(Object value) {
+        this.value = toColumnValue(value);
+    }
+
+    /**
+     * @return the value as written to a column by SugarRecord
+     */
+    static Object toColumnValue(Object value) {
         if (value instanceof SugarRecord) {
-            this.value = ((SugarRecord)value).getId();
-        } else {
-            this.value = value;
+            return ((SugarRecord) value).getId();
+        } else if (value instanceof Ref) {
+            return ((Ref<?>) value).getId();
+        } else if (value instanceof Date) {
+            // Timestamp included
+            return ((Date) value).getTime();
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1 : 0;
+        } else if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        } else if (value != null && value.getClass().isAnnotationPresent(Table.class)) {
+            Field idField = EntityDescriptor.of(value.getClass()).getIdField();
+            return idField != null
+                    ? ReflectionUtil.getIdValue(idField, value)
+                    : getSugarContext().getEntitiesMap().get(value);
         }
+        return value;
     }
 
 }
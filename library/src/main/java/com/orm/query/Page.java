@@ -0,0 +1,37 @@
+package com.orm.query;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of results read by {@link Select#page(String, int)} or one of the pageAfter methods,
+ * and the token to read the next one with.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final String nextToken;
+
+    Page(List<T> items, String nextToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return true if rows follow the last item of this page
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    /**
+     * @return the token to pass to {@link Select#pageAfter(String, String, int)} to read the next
+     *         page, which can be kept as a string, or null if this is the last page
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+}
@@ -0,0 +1,174 @@
+package com.orm.query;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.orm.SugarQueryCache;
+import com.orm.SugarRecord;
+import com.orm.inflater.FetchPlan;
+import com.orm.util.BindingCursorFactory;
+import com.orm.util.EntityDescriptor;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * A query built once by {@link Select#compile()}, whose arguments are bound on every run:
+ * <pre>
+ * PreparedSelect&lt;Note&gt; byTitle = Select.from(Note.class)
+ *         .where(Condition.prop("title").eq(""))
+ *         .compile();
+ * List&lt;Note&gt; notes = byTitle.bind("Groceries").list();
+ * </pre>
+ * Its SQL is built once and never changes, so SQLite parses and plans it once per connection,
+ * and its count statement is compiled once. Immutable and thread safe; {@link #bind(Object...)}
+ * returns a copy holding the new arguments, converted as {@link Condition} values are and bound by
+ * their type.
+ */
+public final class PreparedSelect<T> implements Iterable<T> {
+    private final Class<T> record;
+    private final String whereClause;
+    private final String query;
+    private final String firstQuery;
+    private final FetchPlan fetchPlan;
+    private final int parameterCount;
+    private final CountStatement countStatement;
+    private final Object[] arguments;
+
+    /**
+     * The count statement of a query, shared by the copies of its PreparedSelect.
+     */
+    private static final class CountStatement {
+        private final String sql;
+        private SQLiteDatabase database;
+        private SQLiteStatement statement;
+
+        CountStatement(String sql) {
+            this.sql = sql;
+        }
+
+        synchronized long count(Object[] arguments) {
+            SQLiteDatabase current = getSugarContext().getSugarDb().getDB();
+            if (statement == null || database != current) {
+                if (statement != null) {
+                    statement.close();
+                }
+                statement = current.compileStatement(sql);
+                database = current;
+            }
+            statement.clearBindings();
+            for (int i = 0; i < arguments.length; i++) {
+                BindingCursorFactory.bindValue(statement, i + 1, arguments[i]);
+            }
+            return statement.simpleQueryForLong();
+        }
+    }
+
+    PreparedSelect(Class<T> record, String whereClause, Object[] arguments, String groupBy, String orderBy,
+                   String limit, FetchPlan fetchPlan) {
+        this.record = record;
+        this.whereClause = whereClause;
+        this.query = SugarRecord.buildQuery(record, whereClause, groupBy, orderBy, limit);
+        this.firstQuery = SugarRecord.buildQuery(record, whereClause, groupBy, orderBy, "1");
+        this.fetchPlan = fetchPlan;
+        this.parameterCount = countParameters(whereClause);
+        this.countStatement = new CountStatement("SELECT count(*) FROM " + EntityDescriptor.of(record).getTableName()
+                + (whereClause.isEmpty() ? "" : " WHERE " + whereClause));
+        this.arguments = arguments != null ? arguments : new Object[0];
+    }
+
+    private PreparedSelect(PreparedSelect<T> template, Object[] arguments) {
+        this.record = template.record;
+        this.whereClause = template.whereClause;
+        this.query = template.query;
+        this.firstQuery = template.firstQuery;
+        this.fetchPlan = template.fetchPlan;
+        this.parameterCount = template.parameterCount;
+        this.countStatement = template.countStatement;
+        this.arguments = arguments;
+    }
+
+    /**
+     * @param arguments the values of the parameters of the where clause, in order, converted to
+     *                  their stored form like the values of a {@link Condition}
+     * @return a copy of this query with the given arguments
+     * @throws IllegalArgumentException if the number of arguments doesn't match the parameters, or
+     *                                  an argument is null, which no comparison with ? matches
+     */
+    public PreparedSelect<T> bind(Object... arguments) {
+        if (arguments.length != parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " arguments, got " + arguments.length);
+        }
+        Object[] bound = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == null) {
+                throw new IllegalArgumentException("Argument " + (i + 1) + " is null, use IS NULL in the where clause instead");
+            }
+            bound[i] = Condition.toColumnValue(arguments[i]);
+        }
+        return new PreparedSelect<>(this, bound);
+    }
+
+    public List<T> list() {
+        return SugarRecord.findWithQuery(record, query, arguments, fetchPlan);
+    }
+
+    public T first() {
+        List<T> list = SugarRecord.findWithQuery(record, firstQuery, arguments, fetchPlan);
+        return list.size() > 0 ? list.get(0) : null;
+    }
+
+    public long count() {
+        if (!fetchPlan.isResultCached()) {
+            return countStatement.count(arguments);
+        }
+        List<?> query = Arrays.asList("COUNT", whereClause, Arrays.asList(arguments));
+        Long count = SugarQueryCache.getLong(record, query);
+        if (count == null) {
+            long stamp = SugarQueryCache.getStamp();
+            count = countStatement.count(arguments);
+            SugarQueryCache.putLong(record, query, count, stamp);
+        }
+        return count;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return SugarRecord.findWithQueryAsIterator(record, query, arguments, fetchPlan);
+    }
+
+    /**
+     * @return the number of parameters of the clause outside of its string literals and quoted
+     *         identifiers, numbered parameters ?NNN counting as their highest number
+     */
+    private static int countParameters(String clause) {
+        int highest = 0;
+        char quote = 0;
+        for (int i = 0; i < clause.length(); i++) {
+            char c = clause.charAt(i);
+            if (quote != 0) {
+                if (c == (quote == '[' ? ']' : quote)) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                quote = c;
+            } else if (c == '?') {
+                int end = i + 1;
+                while (end < clause.length() && Character.isDigit(clause.charAt(end))) {
+                    end++;
+                }
+                if (end == i + 1) {
+                    // An anonymous parameter takes the number following the highest so far
+                    highest++;
+                } else {
+                    highest = Math.max(highest, Integer.parseInt(clause.substring(i + 1, end)));
+                    i = end - 1;
+                }
+            }
+        }
+        return highest;
+    }
+}
@@ -1,17 +1,31 @@
 package com.orm.query;
 
 import android.database.Cursor;
+import android.database.sqlite.SQLiteQueryBuilder;
 
+import com.orm.SugarQueryCache;
 import com.orm.SugarRecord;
-import com.orm.helper.NamingHelper;
-
+import com.orm.annotation.FetchType;
+import com.orm.inflater.FetchPlan;
+import com.orm.util.BindingCursorFactory;
+import com.orm.util.EntityDescriptor;
+import com.orm.util.ReflectionUtil;
+import com.orm.util.SQLiteVersion;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
 
 public class Select<T> implements Iterable {
     private static final String SPACE = " ";
-    private static final String SINGLE_QUOTE = "'";
     private static final String LEFT_PARENTHESIS = "(";
     private static final String RIGHT_PARENTHESIS = ")";
     private static final String SELECT_FROM = "SELECT * FROM ";
@@ -20,15 +34,18 @@ public class Select<T> implements Iterable {
     private static final String GROUP_BY = "GROUP BY ";
     private static final String LIMIT = "LIMIT ";
     private static final String OFFSET = "OFFSET ";
+    private static final String ID = "ID";
 
     private Class<T> record;
-    private String[] arguments;
+    private Object[] arguments;
     private String whereClause = "";
     private String orderBy = "";
     private String groupBy = "";
     private String limit = "";
     private String offset = "";
-    private List<String> args = new ArrayList<>();
+    private List<Object> args = new ArrayList<>();
+    private FetchPlan fetchPlan = FetchPlan.DEFAULT;
+    private String[] columns;
 
     public Select(Class<T> record) {
         this.record = record;
@@ -38,6 +55,15 @@ public class Select<T> implements Iterable {
         return new Select<>(record);
     }
 
+    /**
+     * Reads only the given columns, or SQL expressions, into the objects returned by
+     * {@link #into(Class)}. The entities returned by the other methods are still read whole.
+     */
+    public Select<T> select(String... columns) {
+        this.columns = columns.length > 0 ? columns : null;
+        return this;
+    }
+
     public Select<T> orderBy(String prop) {
         this.orderBy = prop;
         return this;
@@ -58,6 +84,44 @@ public class Select<T> implements Iterable {
         return this;
     }
 
+    /**
+     * Fetches every @OneToMany list of the results the given way, whatever its annotation says.
+     * {@link FetchType#LAZY} reads a list only when it is first accessed.
+     */
+    public Select<T> fetch(FetchType fetchType) {
+        this.fetchPlan = fetchPlan.withFetchType(fetchType);
+        return this;
+    }
+
+    /**
+     * Reads the relations of the results down to the given depth only, 1 reading the entities and
+     * lists the results reference but not theirs. Deeper entity fields are left as stubs holding
+     * only the id, and deeper lists are read on first access.
+     */
+    public Select<T> maxDepth(int maxDepth) {
+        this.fetchPlan = fetchPlan.withMaxDepth(maxDepth);
+        return this;
+    }
+
+    /**
+     * Reads the results through the {@link SugarQueryCache}: the rows of the same query, or its
+     * count, are read from SQLite again only once the table of the class is written.
+     */
+    public Select<T> cached() {
+        this.fetchPlan = fetchPlan.withResultCache(true);
+        return this;
+    }
+
+    /**
+     * Leaves the results out of the entities map, the change tracking snapshots and the current
+     * session, for scans which never write them back. Saving such an entity writes all of its
+     * columns, and annotated entities without an id field can't be written back to their row.
+     */
+    public Select<T> readOnly() {
+        this.fetchPlan = fetchPlan.withReadOnly(true);
+        return this;
+    }
+
     public Select<T> where(String whereClause) {
         this.whereClause = whereClause;
         return this;
@@ -70,6 +134,13 @@ public class Select<T> implements Iterable {
         return this;
     }
 
+    /**
+     * Every value is bound as a parameter in its stored form, see {@link Condition#getValue()}, by
+     * its type, so the SQL only depends on the shape of the conditions.
+     *
+     * @throws IllegalArgumentException if the value of a comparison is null, such as the id of an
+     *                                  unsaved entity
+     */
     private void mergeConditions(Condition[] conditions, Condition.Type type) {
         StringBuilder toAppend = new StringBuilder();
         for (Condition condition : conditions) {
@@ -77,15 +148,7 @@ public class Select<T> implements Iterable {
                 toAppend.append(SPACE).append(type.name()).append(SPACE);
             }
 
-            if (Condition.Check.LIKE.equals(condition.getCheck()) ||
-                    Condition.Check.NOT_LIKE.equals(condition.getCheck())) {
-                toAppend
-                    .append(condition.getProperty())
-                    .append(condition.getCheckSymbol())
-                    .append(SINGLE_QUOTE)
-                    .append(condition.getValue().toString())
-                    .append(SINGLE_QUOTE);
-            } else if (Condition.Check.IS_NULL.equals(condition.getCheck()) ||
+            if (Condition.Check.IS_NULL.equals(condition.getCheck()) ||
                     Condition.Check.IS_NOT_NULL.equals(condition.getCheck())) {
                 toAppend
                     .append(condition.getProperty())
@@ -95,7 +158,10 @@ public class Select<T> implements Iterable {
                     .append(condition.getProperty())
                     .append(condition.getCheckSymbol())
                     .append("? ");
-                args.add(condition.getValue().toString());
+                if (condition.getValue() == null) {
+                    throw new IllegalArgumentException("The value compared to " + condition.getProperty() + " is null");
+                }
+                args.add(condition.getValue());
             }
         }
         
@@ -121,29 +187,213 @@ public class Select<T> implements Iterable {
         return this;
     }
 
+    /**
+     * The arguments "true" and "false" are replaced by 1 and 0, the values booleans are stored as.
+     */
     public Select<T> where(String whereClause, String[] args) {
         this.whereClause = whereClause;
-        this.arguments = args;
+        this.arguments = args != null ? SugarRecord.replaceArgs(args) : null;
         return this;
     }
 
     public Cursor getCursor() {
-       return SugarRecord.getCursor(record, whereClause, arguments, groupBy, orderBy, limit);
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.getCursor(record, whereClause, arguments, groupBy, orderBy, getLimit(limit));
     }
     public List<T> list() {
         if (arguments == null) {
             arguments = convertArgs(args);
         }
 
-        return SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, limit);
+        return SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, getLimit(limit), fetchPlan);
     }
     
     public long count() {
         if (arguments == null) {
             arguments = convertArgs(args);
         }
-    	
-        return SugarRecord.count(record, whereClause, arguments, groupBy, orderBy, limit);
+
+        if (!fetchPlan.isResultCached()) {
+            return SugarRecord.count(record, whereClause, arguments, groupBy, orderBy, limit);
+        }
+        List<?> query = Arrays.asList("COUNT", whereClause, arguments == null ? null : Arrays.asList(arguments));
+        Long count = SugarQueryCache.getLong(record, query);
+        if (count == null) {
+            long stamp = SugarQueryCache.getStamp();
+            count = SugarRecord.count(record, whereClause, arguments, groupBy, orderBy, limit);
+            if (count >= 0) {
+                SugarQueryCache.putLong(record, query, count, stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Updates every row matching the conditions of this select with a single statement, without
+     * reading them. The order, limit and offset of this select don't apply.
+     *
+     * @return the number of rows updated
+     */
+    public int update(Assignment... assignments) {
+        if (assignments.length == 0) {
+            throw new IllegalArgumentException("At least one column must be set");
+        }
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        StringBuilder setClause = new StringBuilder();
+        Object[] setArgs = new Object[assignments.length];
+        for (int i = 0; i < assignments.length; i++) {
+            if (i > 0) {
+                setClause.append(", ");
+            }
+            setClause.append(assignments[i].toSql());
+            setArgs[i] = assignments[i].getValue();
+        }
+        return SugarRecord.updateAll(record, setClause.toString(), setArgs, whereClause, arguments);
+    }
+
+    /**
+     * Deletes every row matching the conditions of this select with a single statement, without
+     * reading them. The order, limit and offset of this select don't apply.
+     *
+     * @return the number of rows deleted
+     */
+    public int delete() {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.deleteAll(record, whereClause.isEmpty() ? null : whereClause, arguments);
+    }
+
+    /**
+     * Reads the selected columns of the rows into new objects of a class with a no-arg
+     * constructor, whose fields are matched to the columns by their column name, as for an
+     * entity, or by name. Fields matching no column, or holding entities or lists, are left unset.
+     */
+    public <D> List<D> into(Class<D> type) {
+        Constructor<D> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " has no no-arg constructor", e);
+        }
+
+        Cursor cursor = query(columns);
+        try {
+            // The names of the cursor are as selected, so they are matched ignoring case
+            Map<String, Integer> columnIndexes = new HashMap<>();
+            String[] columnNames = cursor.getColumnNames();
+            for (int i = 0; i < columnNames.length; i++) {
+                columnIndexes.put(columnNames[i].toUpperCase(Locale.US), i);
+            }
+            List<EntityDescriptor.Property> properties = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            for (EntityDescriptor.Property property : EntityDescriptor.of(type).getProperties()) {
+                Integer index = columnIndexes.get(property.getColumnName().toUpperCase(Locale.US));
+                if (index == null) {
+                    index = columnIndexes.get(property.getName().toUpperCase(Locale.US));
+                }
+                if (index != null && !property.getCodec().isEntity() && property.getCodec() != EntityDescriptor.Codec.LIST) {
+                    properties.add(property);
+                    indexes.add(index);
+                }
+            }
+
+            List<D> result = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                D object = constructor.newInstance();
+                for (int i = 0; i < properties.size(); i++) {
+                    ReflectionUtil.setFieldValueFromCursor(cursor, indexes.get(i), properties.get(i), object);
+                }
+                result.add(object);
+            }
+            return result;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Couldn't create " + type.getName(), e);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the values of the column, or SQL expression, in the rows, null values being read as 0
+     */
+    public long[] pluckLong(String column) {
+        Cursor cursor = query(new String[] { column });
+        try {
+            long[] values = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                values[i] = cursor.getLong(0);
+            }
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the values of the column, or SQL expression, in the rows, null values being read as 0
+     */
+    public double[] pluckDouble(String column) {
+        Cursor cursor = query(new String[] { column });
+        try {
+            double[] values = new double[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                values[i] = cursor.getDouble(0);
+            }
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the values of the column, or SQL expression, in the rows
+     */
+    public String[] pluckString(String column) {
+        Cursor cursor = query(new String[] { column });
+        try {
+            String[] values = new String[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                values[i] = cursor.getString(0);
+            }
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @param columns the columns to read, or null to read all of them
+     */
+    private Cursor query(String[] columns) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        String table = EntityDescriptor.of(record).getTableName();
+        return getSugarContext().getSugarDb().getDB().rawQueryWithFactory(new BindingCursorFactory(arguments),
+                SQLiteQueryBuilder.buildQueryString(false, table, columns, whereClause, groupBy, null, orderBy,
+                        getLimit(limit)), null, table);
+    }
+
+    /**
+     * @return the query with its SQL built once, to run again with other arguments
+     * @see PreparedSelect#bind(Object...)
+     */
+    public PreparedSelect<T> compile() {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return new PreparedSelect<>(record, whereClause, arguments, groupBy, orderBy, getLimit(limit), fetchPlan);
     }
 
     public T first() {
@@ -151,13 +401,167 @@ public class Select<T> implements Iterable {
             arguments = convertArgs(args);
         }
 
-        List<T> list = SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, "1");
+        List<T> list = SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, getLimit("1"), fetchPlan);
         return list.size() > 0 ? list.get(0) : null;
     }
+
+    /**
+     * @return the first page of the results, sorted by the column then by id
+     * @see #pageAfter(String, String, int)
+     */
+    public Page<T> page(String sortColumn, int pageSize) {
+        return seek(sortColumn, null, null, pageSize);
+    }
+
+    /**
+     * Reads the page of the results following the row with the given sort key and id, sorted by
+     * the column then by id, whatever the order, limit and offset of this select. Unlike an offset,
+     * the page is found through the index on the column, if any, so every page is read as fast as
+     * the first. The column must not be null.
+     */
+    public Page<T> pageAfter(String sortColumn, Object lastSortKey, long lastId, int pageSize) {
+        if (lastSortKey == null) {
+            throw new IllegalArgumentException("The sort key must not be null");
+        }
+        return seek(sortColumn, Condition.toColumnValue(lastSortKey), lastId, pageSize);
+    }
+
+    /**
+     * @param token the token of the previous page, see {@link Page#getNextToken()}, or null to read
+     *              the first page
+     * @see #pageAfter(String, Object, long, int)
+     */
+    public Page<T> pageAfter(String sortColumn, String token, int pageSize) {
+        if (token == null) {
+            return seek(sortColumn, null, null, pageSize);
+        }
+        int separator = token.indexOf(':');
+        try {
+            long lastId = Long.parseLong(separator < 0 ? token : token.substring(0, separator));
+            return seek(sortColumn, separator < 0 ? null : token.substring(separator + 1), lastId, pageSize);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token " + token, e);
+        }
+    }
+
+    private Page<T> seek(String sortColumn, Object lastSortKey, Long lastId, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive, was " + pageSize);
+        }
+        boolean sortById = ID.equalsIgnoreCase(sortColumn);
+        EntityDescriptor.Property sortProperty = sortById ? null : getProperty(sortColumn);
+        if (sortProperty != null && sortProperty.getCodec() == EntityDescriptor.Codec.BYTES) {
+            throw new IllegalArgumentException(sortColumn + " is a blob, it can't be paged by");
+        }
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        List<Object> seekArgs = new ArrayList<>(Arrays.asList(arguments));
+        String seekClause = whereClause;
+        if (lastId != null) {
+            String seek;
+            Object sortKey = sortById || lastSortKey == null ? null : toSortKey(sortProperty, lastSortKey);
+            if (sortById) {
+                seek = ID + " > ?";
+            } else if (sortKey == null) {
+                throw new IllegalArgumentException("The page token holds no sort key for " + sortColumn);
+            } else if (SQLiteVersion.isAtLeast(getSugarContext().getSugarDb().getDB(), SQLiteVersion.ROW_VALUES)) {
+                seek = LEFT_PARENTHESIS + sortColumn + ", " + ID + ") > (?, ?)";
+                seekArgs.add(sortKey);
+            } else {
+                // Lets SQLite range scan the index on the column without row values
+                seek = sortColumn + " >= ? AND (" + sortColumn + " > ? OR " + ID + " > ?)";
+                seekArgs.add(sortKey);
+                seekArgs.add(sortKey);
+            }
+            seekArgs.add(lastId);
+            seekClause = whereClause.isEmpty()
+                    ? LEFT_PARENTHESIS + seek + RIGHT_PARENTHESIS
+                    : LEFT_PARENTHESIS + whereClause + ") AND (" + seek + RIGHT_PARENTHESIS;
+        }
+
+        String seekOrderBy = sortById ? ID : sortColumn + ", " + ID;
+        List<T> items = SugarRecord.find(record, seekClause, convertArgs(seekArgs), groupBy, seekOrderBy,
+                String.valueOf(pageSize + 1), fetchPlan);
+        if (items.size() <= pageSize) {
+            return new Page<>(items, null);
+        }
+
+        items = new ArrayList<>(items.subList(0, pageSize));
+        T last = items.get(pageSize - 1);
+        Object id = Condition.toColumnValue(last);
+        if (sortById) {
+            return new Page<>(items, String.valueOf(id));
+        }
+        Object sortKey;
+        try {
+            sortKey = Condition.toColumnValue(sortProperty.getField().get(last));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't read " + sortProperty.getName(), e);
+        }
+        if (sortKey == null) {
+            throw new IllegalStateException(sortColumn + " is null, it can't be paged by");
+        }
+        return new Page<>(items, id + ":" + sortKey);
+    }
+
+    /**
+     * @param key the sort key of a row, or its string from a page token
+     * @return the key as the column stores it, to be bound with the type of the column: a REAL
+     *         compared to its decimal text doesn't match the float it was written from
+     */
+    private static Object toSortKey(EntityDescriptor.Property property, Object key) {
+        String text = key instanceof String ? (String) key : null;
+        try {
+            switch (property.getCodec()) {
+                case SHORT:
+                case INTEGER:
+                case LONG:
+                case BOOLEAN:
+                case TIMESTAMP:
+                case DATE:
+                case CALENDAR:
+                case TABLE_ENTITY:
+                case RECORD_ENTITY:
+                case REF:
+                    return text != null ? Long.parseLong(text) : key;
+                case FLOAT:
+                    // Stored as the double of the float, which its decimal text doesn't parse to
+                    return text != null ? Float.parseFloat(text)
+                            : key instanceof Number ? ((Number) key).floatValue() : key;
+                case DOUBLE:
+                    return text != null ? Double.parseDouble(text) : key;
+                default:
+                    return key;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sort key " + key + " for " + property.getName(), e);
+        }
+    }
+
+    private EntityDescriptor.Property getProperty(String columnName) {
+        for (EntityDescriptor.Property property : EntityDescriptor.of(record).getColumns()) {
+            if (property.getColumnName().equalsIgnoreCase(columnName)) {
+                return property;
+            }
+        }
+        throw new IllegalArgumentException(record.getSimpleName() + " has no column " + columnName);
+    }
+
+    /**
+     * @return the limit clause of SQLiteDatabase.query with the offset of this select, if any
+     */
+    private String getLimit(String limit) {
+        if (offset.isEmpty()) {
+            return limit;
+        }
+        return offset + ", " + (limit.isEmpty() ? String.valueOf(Long.MAX_VALUE) : limit);
+    }
     
     String toSql() {
         StringBuilder sql = new StringBuilder();
-        sql.append(SELECT_FROM).append(NamingHelper.toTableName(this.record)).append(SPACE);
+        sql.append(SELECT_FROM).append(EntityDescriptor.of(this.record).getTableName()).append(SPACE);
 
         if (!whereClause.isEmpty()) {
             sql.append(WHERE).append(whereClause).append(SPACE);
@@ -186,12 +590,12 @@ public class Select<T> implements Iterable {
         return whereClause;
     }
 
-    String[] getArgs() {
+    Object[] getArgs() {
         return convertArgs(args);
     }
 
-    private String[] convertArgs(List<String> argsList) {
-        return argsList.toArray(new String[argsList.size()]);
+    private Object[] convertArgs(List<Object> argsList) {
+        return argsList.toArray(new Object[argsList.size()]);
     }
 
     @Override
@@ -200,7 +604,7 @@ public class Select<T> implements Iterable {
             arguments = convertArgs(args);
         }
 
-        return SugarRecord.findAsIterator(record, whereClause, arguments, groupBy, orderBy, limit);
+        return SugarRecord.findAsIterator(record, whereClause, arguments, groupBy, orderBy, getLimit(limit), fetchPlan);
     }
 
 }
@@ -0,0 +1,52 @@
+package com.orm.util;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteQuery;
+
+import com.orm.helper.ManifestHelper;
+
+/**
+ * Cursor factory binding the arguments of a query by their type, which
+ * {@link SQLiteDatabase#rawQuery(String, String[])} binds as strings only. Used with
+ * {@link SQLiteDatabase#rawQueryWithFactory} and no selection arguments.
+ */
+public class BindingCursorFactory extends SugarCursorFactory {
+    private final Object[] arguments;
+
+    public BindingCursorFactory(Object[] arguments) {
+        super(ManifestHelper.isDebugEnabled());
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Cursor newCursor(SQLiteDatabase sqLiteDatabase, SQLiteCursorDriver sqLiteCursorDriver, String editTable,
+                            SQLiteQuery sqLiteQuery) {
+        if (arguments != null) {
+            for (int i = 0; i < arguments.length; i++) {
+                bindValue(sqLiteQuery, i + 1, arguments[i]);
+            }
+        }
+        return super.newCursor(sqLiteDatabase, sqLiteCursorDriver, editTable, sqLiteQuery);
+    }
+
+    /**
+     * Binds integers as INTEGER, floating point numbers as REAL, byte arrays as BLOB, null as NULL
+     * and anything else as its string.
+     */
+    public static void bindValue(SQLiteProgram program, int index, Object value) {
+        if (value == null) {
+            program.bindNull(index);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            program.bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            program.bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof byte[]) {
+            program.bindBlob(index, (byte[]) value);
+        } else {
+            program.bindString(index, String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.orm.util;
+
+import android.util.Log;
+
+import com.orm.Ref;
+import com.orm.SugarRecord;
+import com.orm.annotation.FetchType;
+import com.orm.annotation.Column;
+import com.orm.annotation.FetchDepth;
+import com.orm.annotation.MultiUnique;
+import com.orm.annotation.NotNull;
+import com.orm.annotation.OneToMany;
+import com.orm.annotation.Table;
+import com.orm.annotation.Unique;
+import com.orm.helper.ManifestHelper;
+import com.orm.helper.NamingHelper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable mapping metadata of an entity class: its table name, and the column name, codec and
+ * annotations of each of its fields, with the fields already made accessible.
+ *
+ * Descriptors are built once per class and kept in a concurrent registry, so that reading and
+ * writing rows doesn't need to look annotations up or convert names again, from any thread.
+ */
+public final class EntityDescriptor {
+    private static final ConcurrentMap<Class<?>, EntityDescriptor> descriptors = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Field, Property> properties = new ConcurrentHashMap<>();
+
+    /**
+     * How a field value is converted to and from its column.
+     */
+    public enum Codec {
+        SHORT, INTEGER, LONG, FLOAT, DOUBLE, BOOLEAN, STRING, BIG_DECIMAL, TIMESTAMP, DATE, CALENDAR,
+        BYTES, ENUM, TABLE_ENTITY, RECORD_ENTITY, REF, LIST, OTHER;
+
+        static Codec of(Class<?> type) {
+            if (type.isAnnotationPresent(Table.class)) {
+                return TABLE_ENTITY;
+            } else if (SugarRecord.class.isAssignableFrom(type)) {
+                return RECORD_ENTITY;
+            } else if (type.equals(Short.class) || type.equals(short.class)) {
+                return SHORT;
+            } else if (type.equals(Integer.class) || type.equals(int.class)) {
+                return INTEGER;
+            } else if (type.equals(Long.class) || type.equals(long.class)) {
+                return LONG;
+            } else if (type.equals(Float.class) || type.equals(float.class)) {
+                return FLOAT;
+            } else if (type.equals(Double.class) || type.equals(double.class)) {
+                return DOUBLE;
+            } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+                return BOOLEAN;
+            } else if (type.equals(String.class)) {
+                return STRING;
+            } else if (type.equals(BigDecimal.class)) {
+                return BIG_DECIMAL;
+            } else if (Timestamp.class.equals(type)) {
+                return TIMESTAMP;
+            } else if (Date.class.equals(type)) {
+                return DATE;
+            } else if (Calendar.class.equals(type)) {
+                return CALENDAR;
+            } else if (type.equals(byte[].class)) {
+                return BYTES;
+            } else if (type.equals(List.class)) {
+                return LIST;
+            } else if (type.equals(Ref.class)) {
+                return REF;
+            } else if (Enum.class.isAssignableFrom(type)) {
+                return ENUM;
+            }
+            return OTHER;
+        }
+
+        public boolean isEntity() {
+            return this == TABLE_ENTITY || this == RECORD_ENTITY;
+        }
+    }
+
+    /**
+     * A field of an entity and the column it is stored in.
+     */
+    public static final class Property {
+        private final Field field;
+        private final String columnName;
+        private final Codec codec;
+        private final boolean id;
+        private final boolean idColumn;
+        private final boolean unique;
+        private final boolean notNull;
+        private final Field relationIdField;
+        private final String targetField;
+        private final Class<?> elementType;
+        private final boolean lazy;
+        private final int fetchDepth;
+
+        Property(Field field) {
+            field.setAccessible(true);
+            this.field = field;
+            this.columnName = NamingHelper.toColumnName(field);
+            this.codec = Codec.of(field.getType());
+            this.id = field.getName().equals("id");
+            this.idColumn = columnName.equalsIgnoreCase("id");
+
+            Column column = field.getAnnotation(Column.class);
+            this.unique = field.isAnnotationPresent(Unique.class) || (column != null && column.unique());
+            this.notNull = column != null ? column.notNull() : field.isAnnotationPresent(NotNull.class);
+
+            this.relationIdField = codec == Codec.TABLE_ENTITY ? getDeclaredIdField(field.getType()) : null;
+
+            OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+            if (codec == Codec.LIST && oneToMany != null) {
+                this.targetField = oneToMany.targetField();
+                this.elementType = getElementType(field);
+                this.lazy = oneToMany.fetch() == FetchType.LAZY;
+            } else {
+                this.targetField = null;
+                this.elementType = codec == Codec.REF ? getElementType(field) : null;
+                this.lazy = false;
+            }
+
+            FetchDepth depth = field.getAnnotation(FetchDepth.class);
+            this.fetchDepth = depth != null ? depth.value() : FetchDepth.UNLIMITED;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public String getName() {
+            return field.getName();
+        }
+
+        public Class<?> getType() {
+            return field.getType();
+        }
+
+        public String getColumnName() {
+            return columnName;
+        }
+
+        public Codec getCodec() {
+            return codec;
+        }
+
+        /**
+         * @return true if this is the "id" field holding the row id
+         */
+        public boolean isId() {
+            return id;
+        }
+
+        /**
+         * @return true if the column is named ID, whatever the field name
+         */
+        public boolean isIdColumn() {
+            return idColumn;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        public boolean isNotNull() {
+            return notNull;
+        }
+
+        /**
+         * @return the id field declared by the @Table entity the field references, or null if it
+         *         has none, in which case the id of the referenced object is in the entities map
+         */
+        public Field getRelationIdField() {
+            return relationIdField;
+        }
+
+        /**
+         * @return true if the field is a List annotated with @OneToMany
+         */
+        public boolean isOneToMany() {
+            return targetField != null;
+        }
+
+        /**
+         * @return the @OneToMany target field, or null
+         */
+        public String getTargetField() {
+            return targetField;
+        }
+
+        /**
+         * @return the type of the @OneToMany list elements or of the entity a Ref references, or
+         *         null
+         */
+        public Class<?> getElementType() {
+            return elementType;
+        }
+
+        /**
+         * @return true if the field is a @OneToMany list fetched LAZY
+         */
+        public boolean isLazy() {
+            return lazy;
+        }
+
+        /**
+         * @return the @FetchDepth of the relation, or {@link FetchDepth#UNLIMITED}
+         */
+        public int getFetchDepth() {
+            return fetchDepth;
+        }
+
+        private static Field getDeclaredIdField(Class<?> type) {
+            try {
+                Field idField = type.getDeclaredField("id");
+                idField.setAccessible(true);
+                return idField;
+            } catch (NoSuchFieldException e) {
+                return null;
+            }
+        }
+
+        private static Class<?> getElementType(Field field) {
+            Type genericType = field.getGenericType();
+            if (genericType instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Class<?> type;
+    private final String tableName;
+    private final List<Field> fields;
+    private final List<Property> allProperties;
+    private final List<Property> columns;
+    private final List<Property> relations;
+    private final List<Property> oneToManyProperties;
+    private final Property idProperty;
+    private final boolean hasUniqueConstraint;
+    private final List<String> uniqueKey;
+
+    private EntityDescriptor(Class<?> type) {
+        this.type = type;
+        this.tableName = NamingHelper.toTableName(type);
+
+        List<Field> tableFields = ReflectionUtil.findTableFields(type);
+        List<Property> all = new ArrayList<>(tableFields.size());
+        List<Property> boundColumns = new ArrayList<>();
+        List<Property> entityColumns = new ArrayList<>();
+        List<Property> lists = new ArrayList<>();
+        Property id = null;
+        boolean unique = type.isAnnotationPresent(MultiUnique.class);
+
+        for (Field field : tableFields) {
+            Property property = getProperty(field);
+            all.add(property);
+            if (property.getCodec() == Codec.LIST) {
+                if (property.isOneToMany()) {
+                    lists.add(property);
+                }
+                continue;
+            }
+            if (property.isId()) {
+                id = property;
+                continue;
+            }
+            unique |= property.isUnique();
+            if (property.getCodec().isEntity()) {
+                entityColumns.add(property);
+            }
+            boundColumns.add(property);
+        }
+
+        this.fields = Collections.unmodifiableList(tableFields);
+        this.allProperties = Collections.unmodifiableList(all);
+        this.columns = Collections.unmodifiableList(boundColumns);
+        this.relations = Collections.unmodifiableList(entityColumns);
+        this.oneToManyProperties = Collections.unmodifiableList(lists);
+        this.idProperty = id;
+        this.hasUniqueConstraint = unique;
+        this.uniqueKey = Collections.unmodifiableList(findUniqueKey(type, boundColumns));
+    }
+
+    /**
+     * @return the descriptor of the class, built the first time it is asked for
+     */
+    public static EntityDescriptor of(Class<?> type) {
+        EntityDescriptor descriptor = descriptors.get(type);
+        if (descriptor == null) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.d("Sugar", "Describing " + type.getName());
+            }
+            EntityDescriptor described = new EntityDescriptor(type);
+            descriptor = descriptors.putIfAbsent(type, described);
+            if (descriptor == null) {
+                descriptor = described;
+            }
+        }
+        return descriptor;
+    }
+
+    /**
+     * @return the property of the field, whichever entity class it is declared or inherited in
+     */
+    public static Property getProperty(Field field) {
+        Property property = properties.get(field);
+        if (property == null) {
+            Property created = new Property(field);
+            property = properties.putIfAbsent(field, created);
+            if (property == null) {
+                property = created;
+            }
+        }
+        return property;
+    }
+
+    static void clear() {
+        descriptors.clear();
+        properties.clear();
+    }
+
+    /**
+     * @return the columns of the @MultiUnique constraint, or else of the first unique column, or an
+     *         empty list if the entity has no unique constraint
+     */
+    private static List<String> findUniqueKey(Class<?> type, List<Property> columns) {
+        List<String> key = new ArrayList<>();
+        if (type.isAnnotationPresent(MultiUnique.class)) {
+            for (String field : type.getAnnotation(MultiUnique.class).value().split(",")) {
+                String columnName = NamingHelper.toSQLNameDefault(field.trim());
+                if (indexOf(columns, columnName) < 0) {
+                    return Collections.emptyList();
+                }
+                key.add(columnName);
+            }
+            return key;
+        }
+
+        for (Property column : columns) {
+            if (column.isUnique()) {
+                key.add(column.getColumnName());
+                break;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return the index of the property stored in the column, or -1
+     */
+    public static int indexOf(List<Property> properties, String columnName) {
+        for (int i = 0; i < properties.size(); i++) {
+            if (properties.get(i).getColumnName().equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return every persistent field, including the id and the lists, in declaration order
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the properties of every persistent field, including the id and the lists
+     */
+    public List<Property> getProperties() {
+        return allProperties;
+    }
+
+    /**
+     * @return the properties written to columns, which are all of them but the id and the lists
+     */
+    public List<Property> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the columns referencing another entity
+     */
+    public List<Property> getRelations() {
+        return relations;
+    }
+
+    /**
+     * @return the @OneToMany lists
+     */
+    public List<Property> getOneToManyProperties() {
+        return oneToManyProperties;
+    }
+
+    /**
+     * @return the "id" property, or null if the entity relies on the entities map for its id
+     */
+    public Property getIdProperty() {
+        return idProperty;
+    }
+
+    public Field getIdField() {
+        return idProperty != null ? idProperty.getField() : null;
+    }
+
+    public boolean hasUniqueConstraint() {
+        return hasUniqueConstraint;
+    }
+
+    /**
+     * @return the columns of the @MultiUnique constraint, or else of the first unique column, or an
+     *         empty list if the entity has no unique constraint
+     */
+    public List<String> getUniqueKey() {
+        return uniqueKey;
+    }
+}
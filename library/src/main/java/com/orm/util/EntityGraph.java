@@ -0,0 +1,234 @@
+package com.orm.util;
+
+import com.orm.SugarRecord;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The entities reachable from a set of roots through entity fields and @OneToMany lists, sorted so
+ * that every unsaved entity comes after the unsaved entities it references.
+ *
+ * The elements of a @OneToMany list whose target field is null reference its owner, but their
+ * field is only set once {@link #getSaveOrder()} finds no cycle, so that a rejected graph is left
+ * as it was.
+ */
+public final class EntityGraph {
+    private final Map<Object, Long> entitiesMap;
+    private final WeakIdentitySet stubs;
+    private final Map<Object, Node> nodes = new IdentityHashMap<>();
+    private final List<Node> order = new ArrayList<>();
+    private final Map<Object, List<BackReference>> backReferences = new IdentityHashMap<>();
+
+    private static final class Node {
+        private final Object object;
+        private final List<Node> dependents = new ArrayList<>();
+        private int dependencies;
+
+        Node(Object object) {
+            this.object = object;
+        }
+    }
+
+    /**
+     * The owner to set the target field of a @OneToMany element to.
+     */
+    private static final class BackReference {
+        private final Field field;
+        private final Object owner;
+
+        BackReference(Field field, Object owner) {
+            this.field = field;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * @param stubs the entities holding only their id, which are left out of the graph
+     */
+    public EntityGraph(Collection<?> roots, Map<Object, Long> entitiesMap, WeakIdentitySet stubs) {
+        this.entitiesMap = entitiesMap;
+        this.stubs = stubs;
+
+        ArrayDeque<Node> toVisit = new ArrayDeque<>();
+        for (Object root : roots) {
+            if (root != null && !nodes.containsKey(root) && !stubs.contains(root)) {
+                toVisit.add(addNode(root));
+            }
+        }
+        while (!toVisit.isEmpty()) {
+            visit(toVisit.poll(), toVisit);
+        }
+    }
+
+    /**
+     * Sets the target fields of the @OneToMany elements to their owner once the order is known.
+     *
+     * @return every entity of the graph, in waves which only reference unsaved entities of the
+     *         previous waves, each wave grouped by class
+     * @throws IllegalArgumentException if unsaved entities reference each other in a cycle, in
+     *                                  which case no field is set
+     */
+    public List<List<Object>> getSaveOrder() {
+        List<List<Object>> groups = new ArrayList<>();
+        List<Node> wave = new ArrayList<>();
+        for (Node node : order) {
+            if (node.dependencies == 0) {
+                wave.add(node);
+            }
+        }
+
+        int sorted = 0;
+        while (!wave.isEmpty()) {
+            Map<Class<?>, List<Object>> byClass = new LinkedHashMap<>();
+            List<Node> nextWave = new ArrayList<>();
+            for (Node node : wave) {
+                List<Object> group = byClass.get(node.object.getClass());
+                if (group == null) {
+                    group = new ArrayList<>();
+                    byClass.put(node.object.getClass(), group);
+                }
+                group.add(node.object);
+
+                for (Node dependent : node.dependents) {
+                    if (--dependent.dependencies == 0) {
+                        nextWave.add(dependent);
+                    }
+                }
+            }
+            groups.addAll(byClass.values());
+            sorted += wave.size();
+            wave = nextWave;
+        }
+
+        if (sorted < order.size()) {
+            Set<String> types = new LinkedHashSet<>();
+            for (Node node : order) {
+                if (node.dependencies > 0) {
+                    types.add(node.object.getClass().getSimpleName());
+                }
+            }
+            throw new IllegalArgumentException("Unsaved entities reference each other in a cycle: " + types);
+        }
+
+        for (Map.Entry<Object, List<BackReference>> entry : backReferences.entrySet()) {
+            for (BackReference backReference : entry.getValue()) {
+                try {
+                    backReference.field.set(entry.getKey(), backReference.owner);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Can't set " + backReference.field, e);
+                }
+            }
+        }
+        backReferences.clear();
+        return groups;
+    }
+
+    private Node addNode(Object object) {
+        Node node = new Node(object);
+        nodes.put(object, node);
+        order.add(node);
+        return node;
+    }
+
+    private void visit(Node node, ArrayDeque<Node> toVisit) {
+        Object object = node.object;
+        EntityDescriptor descriptor = EntityDescriptor.of(object.getClass());
+        for (EntityDescriptor.Property relation : descriptor.getRelations()) {
+            Object referenced = getValue(relation.getField(), object);
+            if (referenced == null || stubs.contains(referenced)) {
+                // a stub is saved, and holding only its id it must not be written
+                continue;
+            }
+            Node dependency = nodes.get(referenced);
+            if (dependency == null) {
+                dependency = addNode(referenced);
+                toVisit.add(dependency);
+            }
+            if (!isSaved(referenced)) {
+                dependency.dependents.add(node);
+                node.dependencies++;
+            }
+        }
+
+        for (EntityDescriptor.Property oneToMany : descriptor.getOneToManyProperties()) {
+            Object list = getValue(oneToMany.getField(), object);
+            if (list == null || (list instanceof LazyList && !((LazyList<?>) list).isLoaded())) {
+                // a lazy list which was never read holds nothing to save
+                continue;
+            }
+            for (Object element : (List<?>) list) {
+                if (element != null && SugarRecord.isSugarEntity(element.getClass()) && !stubs.contains(element)) {
+                    Node elementNode = nodes.get(element);
+                    if (elementNode == null) {
+                        elementNode = addNode(element);
+                        toVisit.add(elementNode);
+                    }
+                    if (addBackReference(element, oneToMany.getTargetField(), object) && !isSaved(object)) {
+                        node.dependents.add(elementNode);
+                        elementNode.dependencies++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that the target field of a @OneToMany element is to point to its owner, if it
+     * doesn't reference anything yet, as the relation is only stored on the element side. The
+     * element then depends on the owner, which its own visit doesn't see while the field is null.
+     *
+     * @return true if the back reference was recorded
+     */
+    private boolean addBackReference(Object element, String targetField, Object owner) {
+        for (EntityDescriptor.Property relation : EntityDescriptor.of(element.getClass()).getRelations()) {
+            Field field = relation.getField();
+            if (field.getName().equals(targetField) && field.getType().isAssignableFrom(owner.getClass())) {
+                if (getValue(field, element) != null) {
+                    return false;
+                }
+                List<BackReference> pending = backReferences.get(element);
+                if (pending == null) {
+                    pending = new ArrayList<>(1);
+                    backReferences.put(element, pending);
+                }
+                for (BackReference backReference : pending) {
+                    if (backReference.field.equals(field)) {
+                        // Another owner listing the element came first
+                        return false;
+                    }
+                }
+                pending.add(new BackReference(field, owner));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSaved(Object object) {
+        if (object instanceof SugarRecord) {
+            return ((SugarRecord) object).getId() != null;
+        }
+        Field idField = EntityDescriptor.of(object.getClass()).getIdField();
+        if (idField != null) {
+            return ReflectionUtil.getIdValue(idField, object) != null;
+        }
+        return entitiesMap.containsKey(object);
+    }
+
+    private static Object getValue(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't read " + field, e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.orm.util;
+
+import android.content.ContentValues;
+
+import com.orm.binder.EntityBinder;
+import com.orm.binder.EntityBinders;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Column values of entities as they were last read from or written to the database, used by
+ * update to write only the columns that changed since.
+ */
+public final class EntitySnapshots {
+    private static final ConcurrentMap<Class<?>, ColumnWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Puts the columns of a class in a ContentValues, those handled by its generated binder
+     * through it and the others through reflection.
+     */
+    private static final class ColumnWriter {
+        private final List<EntityDescriptor.Property> columns;
+        private final EntityBinder<Object> binder;
+        private final boolean[] binderColumns;
+        private final boolean[] writtenByBinder;
+
+        @SuppressWarnings("unchecked")
+        ColumnWriter(Class<?> type) {
+            this.columns = EntityDescriptor.of(type).getColumns();
+            this.binder = (EntityBinder<Object>) EntityBinders.getBinder(type);
+            this.writtenByBinder = new boolean[columns.size()];
+            if (binder != null) {
+                String[] binderColumnNames = binder.getColumnNames();
+                this.binderColumns = new boolean[binderColumnNames.length];
+                for (int j = 0; j < binderColumnNames.length; j++) {
+                    int i = EntityDescriptor.indexOf(columns, binderColumnNames[j]);
+                    if (i >= 0) {
+                        binderColumns[j] = true;
+                        writtenByBinder[i] = true;
+                    }
+                }
+            } else {
+                this.binderColumns = null;
+            }
+        }
+
+        ContentValues write(Object object, Map<Object, Long> entitiesMap) {
+            ContentValues values = new ContentValues(columns.size());
+            if (binder != null) {
+                binder.putValues(values, binderColumns, object);
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (!writtenByBinder[i]) {
+                    ReflectionUtil.addFieldValueToColumn(values, columns.get(i), object, entitiesMap);
+                }
+            }
+            return values;
+        }
+    }
+
+    //Prevent instantiation
+    private EntitySnapshots() { }
+
+    /**
+     * @return the current values of every column of the object except the id, converted as they
+     *         would be written
+     */
+    public static ContentValues getColumnValues(Object object, Map<Object, Long> entitiesMap) {
+        Class<?> type = object.getClass();
+        ColumnWriter writer = writers.get(type);
+        if (writer == null) {
+            ColumnWriter created = new ColumnWriter(type);
+            writer = writers.putIfAbsent(type, created);
+            if (writer == null) {
+                writer = created;
+            }
+        }
+        return writer.write(object, entitiesMap);
+    }
+
+    /**
+     * @return a snapshot of the current column values of the object
+     */
+    public static ContentValues snapshotOf(Object object, Map<Object, Long> entitiesMap) {
+        return ownBlobs(getColumnValues(object, entitiesMap));
+    }
+
+    /**
+     * Replaces the blobs of the values by copies, which the entity can't modify in place, so that
+     * the values can be kept as a snapshot.
+     *
+     * @return the values
+     */
+    public static ContentValues ownBlobs(ContentValues values) {
+        for (String key : values.keySet()) {
+            Object value = values.get(key);
+            if (value instanceof byte[]) {
+                // Replaces the value of an existing key, which doesn't modify the key set
+                values.put(key, ((byte[]) value).clone());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the values which differ from the snapshot or are missing from it
+     */
+    public static ContentValues getChangedValues(ContentValues values, ContentValues snapshot) {
+        ContentValues changed = new ContentValues(values);
+        for (String key : values.keySet()) {
+            if (snapshot.containsKey(key) && isEqual(values.get(key), snapshot.get(key))) {
+                changed.remove(key);
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isEqual(Object value, Object snapshot) {
+        if (value instanceof byte[] && snapshot instanceof byte[]) {
+            return Arrays.equals((byte[]) value, (byte[]) snapshot);
+        }
+        return value == null ? snapshot == null : value.equals(snapshot);
+    }
+}
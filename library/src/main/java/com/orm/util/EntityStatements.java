@@ -0,0 +1,531 @@
+package com.orm.util;
+
+import android.database.SQLException;
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.orm.binder.EntityBinder;
+import com.orm.binder.EntityBinders;
+import com.orm.helper.ManifestHelper;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled INSERT, REPLACE, UPSERT, UPDATE and DELETE statements of a single entity class.
+ *
+ * Statements are compiled lazily the first time they are needed and then reused for every row,
+ * values being bound by column position straight from the entity fields, through the generated
+ * {@link EntityBinder} when there is one. A statement is not thread safe, so binding and executing
+ * always happens while holding the statement lock.
+ */
+public final class EntityStatements {
+    private static final String LOG_TAG = "Sugar";
+    private static final String ID = "ID";
+
+    /**
+     * Highest number of bound variables per statement, SQLITE_MAX_VARIABLE_NUMBER before 3.32.0.
+     */
+    public static final int MAX_VARIABLES = 999;
+
+    /**
+     * Highest number of rows in a VALUES clause, SQLITE_MAX_COMPOUND_SELECT before 3.8.8.
+     */
+    private static final int MAX_ROWS = 500;
+
+    private final SQLiteDatabase database;
+    private final String tableName;
+    private final List<EntityDescriptor.Property> columns;
+    private final Field idField;
+    private final boolean hasUniqueConstraint;
+    private final List<String> uniqueKey;
+    private final int[] uniqueKeyColumns;
+    private final int batchSize;
+    private final boolean hasRelations;
+    private final EntityBinder<Object> binder;
+    private final int[] binderPositions;
+    private final boolean[] boundByBinder;
+
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement replaceStatement;
+    private SQLiteStatement updateByIdStatement;
+    private SQLiteStatement deleteByIdStatement;
+    private SQLiteStatement deleteByIdsStatement;
+    private SQLiteStatement batchInsertStatement;
+    private SQLiteStatement upsertByIdStatement;
+    private SQLiteStatement upsertByKeyStatement;
+    private SQLiteStatement selectIdByKeyStatement;
+    private Boolean supportsUpsert;
+
+    @SuppressWarnings("unchecked")
+    EntityStatements(SQLiteDatabase database, Class<?> type) {
+        EntityDescriptor descriptor = EntityDescriptor.of(type);
+        this.database = database;
+        this.tableName = descriptor.getTableName();
+        this.columns = descriptor.getColumns();
+        this.idField = descriptor.getIdField();
+        this.hasUniqueConstraint = descriptor.hasUniqueConstraint();
+        this.uniqueKey = descriptor.getUniqueKey();
+        this.uniqueKeyColumns = new int[uniqueKey.size()];
+        for (int i = 0; i < uniqueKey.size(); i++) {
+            uniqueKeyColumns[i] = EntityDescriptor.indexOf(columns, uniqueKey.get(i));
+        }
+        this.hasRelations = !descriptor.getRelations().isEmpty();
+        this.batchSize = hasUniqueConstraint ? 0 : Math.min(MAX_ROWS, MAX_VARIABLES / (columns.size() + 1));
+
+        this.binder = (EntityBinder<Object>) EntityBinders.getBinder(type);
+        this.boundByBinder = new boolean[columns.size()];
+        if (binder != null) {
+            String[] binderColumns = binder.getColumnNames();
+            this.binderPositions = new int[binderColumns.length];
+            for (int j = 0; j < binderColumns.length; j++) {
+                int i = EntityDescriptor.indexOf(columns, binderColumns[j]);
+                if (i >= 0) {
+                    binderPositions[j] = i + 1;
+                    boundByBinder[i] = true;
+                }
+            }
+        } else {
+            this.binderPositions = null;
+        }
+    }
+
+    SQLiteDatabase getDatabase() {
+        return database;
+    }
+
+    public Field getIdField() {
+        return idField;
+    }
+
+    public boolean hasUniqueConstraint() {
+        return hasUniqueConstraint;
+    }
+
+    /**
+     * @return true if the entity has a key {@link #upsert} can match rows without an id on
+     */
+    public boolean hasUniqueKey() {
+        return !uniqueKey.isEmpty();
+    }
+
+    /**
+     * @return true if the SQLite version supports INSERT ... ON CONFLICT DO UPDATE, added in 3.24.0
+     */
+    public synchronized boolean supportsUpsert() {
+        if (supportsUpsert == null) {
+            supportsUpsert = SQLiteVersion.isAtLeast(database, SQLiteVersion.UPSERT);
+        }
+        return supportsUpsert;
+    }
+
+    /**
+     * Rows referencing other entities are only batched when the caller knows the referenced
+     * entities are saved already, as an unsaved one would only get its id once its own row is
+     * inserted, after the batch was bound.
+     *
+     * @param relationsSaved whether the entities referenced by the rows are known to be saved
+     * @return the number of new rows {@link #insertBatch} packs into one statement, or 0 if rows of
+     *         this entity must be inserted one at a time
+     */
+    public int getBatchSize(boolean relationsSaved) {
+        return batchSize > 1 && (relationsSaved || !hasRelations) ? batchSize : 0;
+    }
+
+    /**
+     * Inserts the object with a plain INSERT, failing on any constraint violation.
+     *
+     * @return the row id of the new row or -1 if an error occurred
+     */
+    public long insert(Object object, Long id, Map<Object, Long> entitiesMap) {
+        return executeInsert(false, object, id, entitiesMap);
+    }
+
+    /**
+     * Inserts the object with INSERT OR REPLACE, replacing any row the values conflict with.
+     *
+     * @return the row id of the new row or -1 if an error occurred
+     */
+    public long replace(Object object, Long id, Map<Object, Long> entitiesMap) {
+        return executeInsert(true, object, id, entitiesMap);
+    }
+
+    /**
+     * Inserts the object or updates the row it conflicts with in place, which unlike REPLACE keeps
+     * the row and its index entries and doesn't fire delete triggers. The row is matched on its id
+     * if there is one, on the unique key otherwise. Requires {@link #supportsUpsert()}.
+     *
+     * A conflict on another unique constraint than the matched one falls back to {@link #replace}.
+     *
+     * @return the row id of the inserted or updated row or -1 if an error occurred
+     */
+    public long upsert(Object object, Long id, Map<Object, Long> entitiesMap) {
+        if (id == null && uniqueKey.isEmpty()) {
+            return insert(object, null, entitiesMap);
+        }
+
+        try {
+            SQLiteStatement statement = id != null ? getUpsertByIdStatement() : getUpsertByKeyStatement();
+            long insertedId;
+            synchronized (statement) {
+                bindInsertValues(statement, object, id, entitiesMap);
+                insertedId = statement.executeInsert();
+            }
+            return id != null ? id : selectIdByKey(object, insertedId, entitiesMap);
+        } catch (SQLiteConstraintException e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.d(LOG_TAG, "Upsert into " + tableName + " conflicted, replacing", e);
+            }
+            return replace(object, id, entitiesMap);
+        } catch (SQLException e) {
+            Log.e(LOG_TAG, "Error upserting into " + tableName, e);
+            return -1;
+        }
+    }
+
+    /**
+     * The row id reported by an upsert is stale when it updated a row, so it is looked up by key.
+     */
+    private long selectIdByKey(Object object, long insertedId, Map<Object, Long> entitiesMap) {
+        SQLiteStatement statement = getSelectIdByKeyStatement();
+        synchronized (statement) {
+            statement.clearBindings();
+            for (int i = 0; i < uniqueKeyColumns.length; i++) {
+                ReflectionUtil.bindFieldValueToStatement(statement, i + 1, columns.get(uniqueKeyColumns[i]), object, entitiesMap);
+            }
+            try {
+                return statement.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                // A NULL key never conflicts, so the row was inserted
+                return insertedId;
+            }
+        }
+    }
+
+    /**
+     * Inserts new rows for all the given objects with a single multi-row INSERT, for at most
+     * {@link #getBatchSize(boolean)} of them.
+     *
+     * Without ids the new rows get consecutive ids, so the id of the object at index i is the
+     * returned id minus (objects.size() - 1 - i). Either all the rows are inserted or none of them
+     * are.
+     *
+     * @param ids the ids of the new rows, in the order of the objects, or null to let SQLite
+     *            assign them
+     * @return the row id of the last new row or -1 if an error occurred
+     */
+    public long insertBatch(List<?> objects, List<Long> ids, Map<Object, Long> entitiesMap) {
+        if (objects.size() > getBatchSize(true)) {
+            throw new IllegalArgumentException("Can't insert more than " + getBatchSize(true) + " rows at once");
+        }
+
+        SQLiteStatement statement = null;
+        boolean cached = objects.size() == batchSize;
+        try {
+            statement = cached ? getBatchInsertStatement() : compile(batchInsertSQL(objects.size()));
+            synchronized (statement) {
+                statement.clearBindings();
+                int[] positions = binderPositions != null ? new int[binderPositions.length] : null;
+                int rowOffset = 0;
+                for (int row = 0; row < objects.size(); row++) {
+                    Object object = objects.get(row);
+                    if (positions != null) {
+                        for (int i = 0; i < positions.length; i++) {
+                            positions[i] = binderPositions[i] == 0 ? 0 : binderPositions[i] + rowOffset;
+                        }
+                    }
+                    bindColumns(statement, rowOffset, positions, object, entitiesMap);
+                    if (ids == null) {
+                        statement.bindNull(rowOffset + columns.size() + 1);
+                    } else {
+                        statement.bindLong(rowOffset + columns.size() + 1, ids.get(row));
+                    }
+                    rowOffset += columns.size() + 1;
+                }
+                return statement.executeInsert();
+            }
+        } catch (SQLException e) {
+            Log.e(LOG_TAG, "Error inserting " + objects.size() + " rows into " + tableName, e);
+            return -1;
+        } finally {
+            if (!cached) {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * Rewrites every column of the row with the given id.
+     *
+     * @return the number of rows affected
+     */
+    public int updateById(Object object, long id, Map<Object, Long> entitiesMap) {
+        SQLiteStatement statement = getUpdateByIdStatement();
+        synchronized (statement) {
+            statement.clearBindings();
+            bindColumns(statement, 0, binderPositions, object, entitiesMap);
+            statement.bindLong(columns.size() + 1, id);
+            return statement.executeUpdateDelete();
+        }
+    }
+
+    /**
+     * Deletes the row with the given id.
+     *
+     * @return the number of rows affected
+     */
+    public int deleteById(long id) {
+        SQLiteStatement statement = getDeleteByIdStatement();
+        synchronized (statement) {
+            statement.clearBindings();
+            statement.bindLong(1, id);
+            return statement.executeUpdateDelete();
+        }
+    }
+
+    /**
+     * Deletes the rows with the given ids using DELETE ... WHERE ID IN (...) statements of up to
+     * {@value #MAX_VARIABLES} ids each.
+     *
+     * @return the number of rows affected
+     */
+    public int deleteByIds(Collection<Long> ids) {
+        int deleted = 0;
+        Iterator<Long> iterator = ids.iterator();
+        int remaining = ids.size();
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, MAX_VARIABLES);
+            boolean cached = chunk == 1 || chunk == MAX_VARIABLES;
+            SQLiteStatement statement = chunk == 1 ? getDeleteByIdStatement()
+                    : chunk == MAX_VARIABLES ? getDeleteByIdsStatement()
+                    : compile(deleteByIdsSQL(chunk));
+            try {
+                synchronized (statement) {
+                    statement.clearBindings();
+                    for (int i = 1; i <= chunk; i++) {
+                        statement.bindLong(i, iterator.next());
+                    }
+                    deleted += statement.executeUpdateDelete();
+                }
+            } finally {
+                if (!cached) {
+                    closeQuietly(statement);
+                }
+            }
+            remaining -= chunk;
+        }
+        return deleted;
+    }
+
+    private void bindInsertValues(SQLiteStatement statement, Object object, Long id, Map<Object, Long> entitiesMap) {
+        statement.clearBindings();
+        bindColumns(statement, 0, binderPositions, object, entitiesMap);
+        if (id != null) {
+            statement.bindLong(columns.size() + 1, id);
+        } else {
+            statement.bindNull(columns.size() + 1);
+        }
+    }
+
+    private void bindColumns(SQLiteStatement statement, int offset, int[] positions, Object object, Map<Object, Long> entitiesMap) {
+        if (binder != null) {
+            binder.bindToStatement(statement, positions, object);
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (!boundByBinder[i]) {
+                ReflectionUtil.bindFieldValueToStatement(statement, offset + i + 1, columns.get(i), object, entitiesMap);
+            }
+        }
+    }
+
+    private long executeInsert(boolean orReplace, Object object, Long id, Map<Object, Long> entitiesMap) {
+        try {
+            SQLiteStatement statement = orReplace ? getReplaceStatement() : getInsertStatement();
+            synchronized (statement) {
+                bindInsertValues(statement, object, id, entitiesMap);
+                return statement.executeInsert();
+            }
+        } catch (SQLException e) {
+            Log.e(LOG_TAG, "Error inserting into " + tableName, e);
+            return -1;
+        }
+    }
+
+    private synchronized SQLiteStatement getInsertStatement() {
+        if (insertStatement == null) {
+            insertStatement = compile(insertSQL("INSERT INTO "));
+        }
+        return insertStatement;
+    }
+
+    private synchronized SQLiteStatement getReplaceStatement() {
+        if (replaceStatement == null) {
+            replaceStatement = compile(insertSQL("INSERT OR REPLACE INTO "));
+        }
+        return replaceStatement;
+    }
+
+    private synchronized SQLiteStatement getUpsertByIdStatement() {
+        if (upsertByIdStatement == null) {
+            upsertByIdStatement = compile(upsertSQL(Collections.singletonList(ID)));
+        }
+        return upsertByIdStatement;
+    }
+
+    private synchronized SQLiteStatement getUpsertByKeyStatement() {
+        if (upsertByKeyStatement == null) {
+            upsertByKeyStatement = compile(upsertSQL(uniqueKey));
+        }
+        return upsertByKeyStatement;
+    }
+
+    private synchronized SQLiteStatement getSelectIdByKeyStatement() {
+        if (selectIdByKeyStatement == null) {
+            StringBuilder sql = new StringBuilder("SELECT ");
+            sql.append(ID).append(" FROM ").append(tableName).append(" WHERE ");
+            for (int i = 0; i < uniqueKey.size(); i++) {
+                if (i > 0) {
+                    sql.append(" AND ");
+                }
+                sql.append(uniqueKey.get(i)).append(" = ?");
+            }
+            selectIdByKeyStatement = compile(sql.toString());
+        }
+        return selectIdByKeyStatement;
+    }
+
+    private synchronized SQLiteStatement getBatchInsertStatement() {
+        if (batchInsertStatement == null) {
+            batchInsertStatement = compile(batchInsertSQL(batchSize));
+        }
+        return batchInsertStatement;
+    }
+
+    private synchronized SQLiteStatement getUpdateByIdStatement() {
+        if (updateByIdStatement == null) {
+            StringBuilder sql = new StringBuilder("UPDATE ");
+            sql.append(tableName).append(" SET ");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(columns.get(i).getColumnName()).append(" = ?");
+            }
+            sql.append(" WHERE ").append(ID).append(" = ?");
+            updateByIdStatement = compile(sql.toString());
+        }
+        return updateByIdStatement;
+    }
+
+    private synchronized SQLiteStatement getDeleteByIdStatement() {
+        if (deleteByIdStatement == null) {
+            deleteByIdStatement = compile("DELETE FROM " + tableName + " WHERE " + ID + " = ?");
+        }
+        return deleteByIdStatement;
+    }
+
+    private synchronized SQLiteStatement getDeleteByIdsStatement() {
+        if (deleteByIdsStatement == null) {
+            deleteByIdsStatement = compile(deleteByIdsSQL(MAX_VARIABLES));
+        }
+        return deleteByIdsStatement;
+    }
+
+    private String deleteByIdsSQL(int count) {
+        return "DELETE FROM " + tableName + " WHERE " + ID + " IN (" + QueryBuilder.generatePlaceholders(count) + ")";
+    }
+
+    private String insertSQL(String verb) {
+        return insertSQL(verb, 1);
+    }
+
+    private String batchInsertSQL(int rows) {
+        return insertSQL("INSERT INTO ", rows);
+    }
+
+    private String insertSQL(String verb, int rows) {
+        StringBuilder sql = new StringBuilder(verb);
+        sql.append(tableName).append(" (");
+        for (EntityDescriptor.Property column : columns) {
+            sql.append(column.getColumnName()).append(", ");
+        }
+        sql.append(ID).append(") VALUES ");
+        String placeholders = QueryBuilder.generatePlaceholders(columns.size() + 1);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(").append(placeholders).append(")");
+        }
+        return sql.toString();
+    }
+
+    private String upsertSQL(List<String> conflictColumns) {
+        StringBuilder sql = new StringBuilder(insertSQL("INSERT INTO "));
+        sql.append(" ON CONFLICT(").append(TextUtils.join(", ", conflictColumns)).append(") DO ");
+
+        boolean first = true;
+        for (EntityDescriptor.Property column : columns) {
+            String columnName = column.getColumnName();
+            if (conflictColumns.contains(columnName)) {
+                continue;
+            }
+            sql.append(first ? "UPDATE SET " : ", ")
+                    .append(columnName).append(" = excluded.").append(columnName);
+            first = false;
+        }
+        if (first) {
+            sql.append("NOTHING");
+        }
+        return sql.toString();
+    }
+
+    private SQLiteStatement compile(String sql) {
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.d(LOG_TAG, "Compiling " + sql);
+        }
+        return database.compileStatement(sql);
+    }
+
+    synchronized void close() {
+        closeQuietly(insertStatement);
+        closeQuietly(replaceStatement);
+        closeQuietly(updateByIdStatement);
+        closeQuietly(deleteByIdStatement);
+        closeQuietly(deleteByIdsStatement);
+        closeQuietly(batchInsertStatement);
+        closeQuietly(upsertByIdStatement);
+        closeQuietly(upsertByKeyStatement);
+        closeQuietly(selectIdByKeyStatement);
+        insertStatement = null;
+        replaceStatement = null;
+        updateByIdStatement = null;
+        deleteByIdStatement = null;
+        deleteByIdsStatement = null;
+        batchInsertStatement = null;
+        upsertByIdStatement = null;
+        upsertByKeyStatement = null;
+        selectIdByKeyStatement = null;
+        supportsUpsert = null;
+    }
+
+    private static void closeQuietly(SQLiteStatement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (Exception e) {
+                if (ManifestHelper.isDebugEnabled()) {
+                    Log.d(LOG_TAG, "Couldn't close statement", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.orm.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entities by class and id, so that a row is inflated into a single instance. Not thread safe.
+ */
+public final class IdentityMap {
+    private final Map<Class<?>, LongMap<Object>> entities = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> type, long id) {
+        LongMap<Object> typeEntities = entities.get(type);
+        return typeEntities != null ? (T) typeEntities.get(id) : null;
+    }
+
+    /**
+     * Adds the entity unless an entity of the same class and id is already there.
+     */
+    public void put(Object entity, long id) {
+        LongMap<Object> typeEntities = entities.get(entity.getClass());
+        if (typeEntities == null) {
+            typeEntities = new LongMap<>();
+            entities.put(entity.getClass(), typeEntities);
+        }
+        if (!typeEntities.containsKey(id)) {
+            typeEntities.put(id, entity);
+        }
+    }
+
+    public void remove(Class<?> type, long id) {
+        LongMap<Object> typeEntities = entities.get(type);
+        if (typeEntities != null) {
+            typeEntities.remove(id);
+        }
+    }
+
+    public void removeAll(Class<?> type) {
+        entities.remove(type);
+    }
+
+    /**
+     * @return every entity, grouped by class
+     */
+    public List<Object> values() {
+        List<Object> values = new ArrayList<>();
+        for (LongMap<Object> typeEntities : entities.values()) {
+            values.addAll(typeEntities.values());
+        }
+        return values;
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongMap<Object> typeEntities : entities.values()) {
+            size += typeEntities.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        entities.clear();
+    }
+}
@@ -0,0 +1,67 @@
+package com.orm.util;
+
+import com.orm.SugarRecord;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * The elements of a lazily fetched @OneToMany list, read with one query the first time the list is
+ * accessed. Once read it behaves like an ArrayList. Not thread safe.
+ */
+public final class LazyList<E> extends AbstractList<E> {
+    private final Class<E> elementType;
+    private final String targetField;
+    private final Object owner;
+    private final long ownerId;
+    private List<E> elements;
+
+    public LazyList(Class<E> elementType, String targetField, Object owner, long ownerId) {
+        this.elementType = elementType;
+        this.targetField = targetField;
+        this.owner = owner;
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * @return true once the elements are read
+     */
+    public boolean isLoaded() {
+        return elements != null;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements().get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements().size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return elements().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = elements().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    private List<E> elements() {
+        if (elements == null) {
+            elements = SugarRecord.findOneToMany(elementType, targetField, owner, ownerId);
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,149 @@
+package com.orm.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash map from primitive long keys to objects, used to group rows by id without boxing every id
+ * as a HashMap&lt;Long, V&gt; would. Not thread safe.
+ */
+public final class LongMap<V> {
+    private long[] keys;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+
+    public LongMap() {
+        this(8);
+    }
+
+    public LongMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return used[index] ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return used[indexOf(key)];
+    }
+
+    /**
+     * @return the previous value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int index = indexOf(key);
+        if (used[index]) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        used[index] = true;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * @return the removed value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int hole = indexOf(key);
+        if (!used[hole]) {
+            return null;
+        }
+        V removed = (V) values[hole];
+
+        // Shifts back the following entries of the run which would no longer be found past the hole
+        int mask = keys.length - 1;
+        for (int index = (hole + 1) & mask; used[index]; index = (index + 1) & mask) {
+            int home = slotOf(keys[index]);
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        used[hole] = false;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the values, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                list.add((V) values[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the slot of the key, or the free slot it would be put in
+     */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = slotOf(key);
+        while (used[index] && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * @return the slot the key is put in when no other key occupies it
+     */
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                used[index] = true;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.orm.util;
 
+import com.orm.Ref;
 import com.orm.SugarRecord;
 
 import java.lang.RuntimeException;
@@ -14,7 +15,8 @@ public class QueryBuilder {
                 (type.equals(Integer.class)) ||
                 (type.equals(Integer.TYPE)) ||
                 (type.equals(Long.class)) ||
-                (type.equals(Long.TYPE)) || (
+                (type.equals(Long.TYPE)) ||
+                (type.equals(Ref.class)) || (
                 (!type.isPrimitive()) &&
                         (SugarRecord.class.isAssignableFrom(type))))  {
             return "INTEGER";
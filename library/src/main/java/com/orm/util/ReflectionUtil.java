@@ -2,19 +2,19 @@ package com.orm.util;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
+import com.orm.Ref;
 import com.orm.SugarRecord;
 import com.orm.annotation.Ignore;
 import com.orm.annotation.Table;
 import com.orm.helper.ManifestHelper;
-import com.orm.helper.NamingHelper;
 import com.orm.util.classdiscovery.DexClassScanner;
 import com.orm.util.classdiscovery.JarClassScanner;
 import com.orm.util.classdiscovery.ResourcesClassScanner;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -35,6 +35,12 @@ public final class ReflectionUtil {
         List<Field> fieldList = SugarConfig.getFields(table);
         if (fieldList != null) return fieldList;
 
+        List<Field> toStore = EntityDescriptor.of(table).getFields();
+        SugarConfig.setFields(table, toStore);
+        return toStore;
+    }
+
+    static List<Field> findTableFields(Class<?> table) {
         if (ManifestHelper.isDebugEnabled()) {
             Log.d("Sugar", "Fetching properties");
         }
@@ -48,8 +54,6 @@ public final class ReflectionUtil {
                 toStore.add(field);
             }
         }
-
-        SugarConfig.setFields(table, toStore);
         return toStore;
     }
 
@@ -65,86 +69,94 @@ public final class ReflectionUtil {
 
     public static void addFieldValueToColumn(ContentValues values, Field column, Object object,
                                              Map<Object, Long> entitiesMap) {
-        column.setAccessible(true);
-        Class<?> columnType = column.getType();
+        addFieldValueToColumn(values, EntityDescriptor.getProperty(column), object, entitiesMap);
+    }
+
+    public static void addFieldValueToColumn(ContentValues values, EntityDescriptor.Property column, Object object,
+                                             Map<Object, Long> entitiesMap) {
+        String columnName = column.getColumnName();
         try {
-            String columnName = NamingHelper.toColumnName(column);
-            Object columnValue = column.get(object);
-
-            if (columnType.isAnnotationPresent(Table.class)) {
-                Field field;
-                try {
-                    field = columnType.getDeclaredField("id");
-                    field.setAccessible(true);
-                    if (columnValue != null) {
-                        values.put(columnName, String.valueOf(field.get(columnValue)));
-                    } else {
-                        values.putNull(columnName);
-                    }
-                } catch (NoSuchFieldException e) {
-                    if (entitiesMap.containsKey(columnValue)) {
+            Object columnValue = column.getField().get(object);
+
+            switch (column.getCodec()) {
+                case TABLE_ENTITY:
+                    Field field = column.getRelationIdField();
+                    if (field != null) {
+                        if (columnValue != null) {
+                            values.put(columnName, String.valueOf(field.get(columnValue)));
+                        } else {
+                            values.putNull(columnName);
+                        }
+                    } else if (entitiesMap.containsKey(columnValue)) {
                         values.put(columnName, entitiesMap.get(columnValue));
                     }
-                }
-            } else if (SugarRecord.class.isAssignableFrom(columnType)) {
-                values.put(columnName,
-                        (columnValue != null)
-                                ? String.valueOf(((SugarRecord) columnValue).getId())
-                                : "0");
-            } else {
-                if (columnType.equals(Short.class) || columnType.equals(short.class)) {
+                    break;
+                case RECORD_ENTITY:
+                    values.put(columnName,
+                            (columnValue != null)
+                                    ? String.valueOf(((SugarRecord) columnValue).getId())
+                                    : "0");
+                    break;
+                case SHORT:
                     values.put(columnName, (Short) columnValue);
-                } else if (columnType.equals(Integer.class) || columnType.equals(int.class)) {
+                    break;
+                case INTEGER:
                     values.put(columnName, (Integer) columnValue);
-                } else if (columnType.equals(Long.class) || columnType.equals(long.class)) {
+                    break;
+                case LONG:
                     values.put(columnName, (Long) columnValue);
-                } else if (columnType.equals(Float.class) || columnType.equals(float.class)) {
+                    break;
+                case FLOAT:
                     values.put(columnName, (Float) columnValue);
-                } else if (columnType.equals(Double.class) || columnType.equals(double.class)) {
+                    break;
+                case DOUBLE:
                     values.put(columnName, (Double) columnValue);
-                } else if (columnType.equals(Boolean.class) || columnType.equals(boolean.class)) {
+                    break;
+                case BOOLEAN:
                     values.put(columnName, (Boolean) columnValue);
-                } else if (columnType.equals(BigDecimal.class)) {
-                    try {
-                        values.put(columnName, column.get(object).toString());
-                    } catch (NullPointerException e) {
+                    break;
+                case BIG_DECIMAL:
+                    if (columnValue == null) {
                         values.putNull(columnName);
+                    } else {
+                        values.put(columnName, columnValue.toString());
                     }
-                } else if (Timestamp.class.equals(columnType)) {
-                    try {
-                        values.put(columnName, ((Timestamp) column.get(object)).getTime());
-                    } catch (NullPointerException e) {
-                        values.put(columnName, (Long) null);
-                    }
-                } else if (Date.class.equals(columnType)) {
-                    try {
-                        values.put(columnName, ((Date) column.get(object)).getTime());
-                    } catch (NullPointerException e) {
-                        values.put(columnName, (Long) null);
-                    }
-                } else if (Calendar.class.equals(columnType)) {
-                    try {
-                        values.put(columnName, ((Calendar) column.get(object)).getTimeInMillis());
-                    } catch (NullPointerException e) {
-                        values.put(columnName, (Long) null);
-                    }
-                } else if (columnType.equals(byte[].class)) {
+                    break;
+                case TIMESTAMP:
+                    values.put(columnName, columnValue == null ? null : ((Timestamp) columnValue).getTime());
+                    break;
+                case DATE:
+                    values.put(columnName, columnValue == null ? null : ((Date) columnValue).getTime());
+                    break;
+                case CALENDAR:
+                    values.put(columnName, columnValue == null ? null : ((Calendar) columnValue).getTimeInMillis());
+                    break;
+                case BYTES:
                     if (columnValue == null) {
                         values.put(columnName, "".getBytes());
                     } else {
                         values.put(columnName, (byte[]) columnValue);
                     }
-                } else if (columnType.equals(List.class)) {
+                    break;
+                case REF:
+                    Long refId = columnValue != null ? ((Ref<?>) columnValue).getId() : null;
+                    if (refId != null) {
+                        values.put(columnName, refId);
+                    } else {
+                        values.putNull(columnName);
+                    }
+                    break;
+                case LIST:
                     //ignore
-                } else {
+                    break;
+                default:
                     if (columnValue == null) {
                         values.putNull(columnName);
-                    } else if (columnType.isEnum()) {
+                    } else if (columnValue instanceof Enum) {
                         values.put(columnName, ((Enum) columnValue).name());
                     } else {
                         values.put(columnName, String.valueOf(columnValue));
                     }
-                }
             }
 
         } catch (IllegalAccessException e) {
@@ -154,86 +166,193 @@ public final class ReflectionUtil {
         }
     }
 
-    public static void setFieldValueFromCursor(Cursor cursor, Field field, Object object) {
-        field.setAccessible(true);
-        try {
-            Class fieldType = field.getType();
-            String colName = NamingHelper.toColumnName(field);
+    public static void bindFieldValueToStatement(SQLiteStatement statement, int index, Field column, Object object,
+                                                 Map<Object, Long> entitiesMap) {
+        bindFieldValueToStatement(statement, index, EntityDescriptor.getProperty(column), object, entitiesMap);
+    }
 
-            int columnIndex = cursor.getColumnIndex(colName);
+    public static void bindFieldValueToStatement(SQLiteStatement statement, int index, EntityDescriptor.Property column, Object object,
+                                                 Map<Object, Long> entitiesMap) {
+        try {
+            Object columnValue = column.getField().get(object);
+            EntityDescriptor.Codec codec = column.getCodec();
 
-            //TODO auto upgrade to add new columns
-            if (columnIndex < 0) {
-                if (ManifestHelper.isDebugEnabled()) {
-                    Log.e("SUGAR", "Invalid colName, you should upgrade database");
+            if (codec == EntityDescriptor.Codec.TABLE_ENTITY) {
+                Field field = column.getRelationIdField();
+                if (field != null) {
+                    if (columnValue != null) {
+                        statement.bindString(index, String.valueOf(field.get(columnValue)));
+                    } else {
+                        statement.bindNull(index);
+                    }
+                } else {
+                    Long relationId = entitiesMap.get(columnValue);
+                    if (columnValue != null && relationId != null) {
+                        statement.bindLong(index, relationId);
+                    } else {
+                        statement.bindNull(index);
+                    }
                 }
                 return;
+            } else if (codec == EntityDescriptor.Codec.RECORD_ENTITY) {
+                statement.bindString(index,
+                        (columnValue != null)
+                                ? String.valueOf(((SugarRecord) columnValue).getId())
+                                : "0");
+                return;
+            } else if (columnValue == null) {
+                if (codec == EntityDescriptor.Codec.BYTES) {
+                    statement.bindBlob(index, "".getBytes());
+                } else {
+                    statement.bindNull(index);
+                }
+                return;
+            }
+
+            switch (codec) {
+                case SHORT:
+                    statement.bindLong(index, (Short) columnValue);
+                    break;
+                case INTEGER:
+                    statement.bindLong(index, (Integer) columnValue);
+                    break;
+                case LONG:
+                    statement.bindLong(index, (Long) columnValue);
+                    break;
+                case FLOAT:
+                    statement.bindDouble(index, (Float) columnValue);
+                    break;
+                case DOUBLE:
+                    statement.bindDouble(index, (Double) columnValue);
+                    break;
+                case BOOLEAN:
+                    statement.bindLong(index, ((Boolean) columnValue) ? 1 : 0);
+                    break;
+                case TIMESTAMP:
+                    statement.bindLong(index, ((Timestamp) columnValue).getTime());
+                    break;
+                case DATE:
+                    statement.bindLong(index, ((Date) columnValue).getTime());
+                    break;
+                case CALENDAR:
+                    statement.bindLong(index, ((Calendar) columnValue).getTimeInMillis());
+                    break;
+                case BYTES:
+                    statement.bindBlob(index, (byte[]) columnValue);
+                    break;
+                case ENUM:
+                    statement.bindString(index, ((Enum) columnValue).name());
+                    break;
+                case REF:
+                    Long refId = ((Ref<?>) columnValue).getId();
+                    if (refId != null) {
+                        statement.bindLong(index, refId);
+                    } else {
+                        statement.bindNull(index);
+                    }
+                    break;
+                default:
+                    statement.bindString(index, String.valueOf(columnValue));
             }
 
+        } catch (IllegalAccessException e) {
+            statement.bindNull(index);
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e("Sugar", e.getMessage());
+            }
+        }
+    }
+
+    public static void setFieldValueFromCursor(Cursor cursor, Field field, Object object) {
+        setFieldValueFromCursor(cursor, EntityDescriptor.getProperty(field), object);
+    }
+
+    public static void setFieldValueFromCursor(Cursor cursor, EntityDescriptor.Property property, Object object) {
+        int columnIndex = cursor.getColumnIndex(property.getColumnName());
+
+        //TODO auto upgrade to add new columns
+        if (columnIndex < 0) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e("SUGAR", "Invalid colName, you should upgrade database");
+            }
+            return;
+        }
+
+        setFieldValueFromCursor(cursor, columnIndex, property, object);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void setFieldValueFromCursor(Cursor cursor, int columnIndex, EntityDescriptor.Property property, Object object) {
+        Field field = property.getField();
+        try {
             if (cursor.isNull(columnIndex)) {
                 return;
             }
 
-            if (colName.equalsIgnoreCase("id")) {
-                long cid = cursor.getLong(columnIndex);
-                field.set(object, cid);
-            } else if (fieldType.equals(long.class) || fieldType.equals(Long.class)) {
-                field.set(object,
-                        cursor.getLong(columnIndex));
-            } else if (fieldType.equals(String.class)) {
-                String val = cursor.getString(columnIndex);
-                field.set(object, val != null && val.equals("null") ? null : val);
-            } else if (fieldType.equals(double.class) || fieldType.equals(Double.class)) {
-                field.set(object,
-                        cursor.getDouble(columnIndex));
-            } else if (fieldType.equals(boolean.class) || fieldType.equals(Boolean.class)) {
-                field.set(object,
-                        cursor.getString(columnIndex).equals("1"));
-            } else if (fieldType.equals(int.class) || fieldType.equals(Integer.class)) {
-                field.set(object,
-                        cursor.getInt(columnIndex));
-            } else if (fieldType.equals(float.class) || fieldType.equals(Float.class)) {
-                field.set(object,
-                        cursor.getFloat(columnIndex));
-            } else if (fieldType.equals(short.class) || fieldType.equals(Short.class)) {
-                field.set(object,
-                        cursor.getShort(columnIndex));
-            } else if (fieldType.equals(BigDecimal.class)) {
-                String val = cursor.getString(columnIndex);
-                field.set(object, val != null && val.equals("null") ? null : new BigDecimal(val));
-            } else if (fieldType.equals(Timestamp.class)) {
-                long l = cursor.getLong(columnIndex);
-                field.set(object, new Timestamp(l));
-            } else if (fieldType.equals(Date.class)) {
-                long l = cursor.getLong(columnIndex);
-                field.set(object, new Date(l));
-            } else if (fieldType.equals(Calendar.class)) {
-                long l = cursor.getLong(columnIndex);
-                Calendar c = Calendar.getInstance();
-                c.setTimeInMillis(l);
-                field.set(object, c);
-            } else if (fieldType.equals(byte[].class)) {
-                byte[] bytes = cursor.getBlob(columnIndex);
-                if (bytes == null) {
-                    field.set(object, "".getBytes());
-                } else {
-                    field.set(object, cursor.getBlob(columnIndex));
-                }
-            } else if (Enum.class.isAssignableFrom(fieldType)) {
-                try {
-                    Method valueOf = field.getType().getMethod("valueOf", String.class);
-                    String strVal = cursor.getString(columnIndex);
-                    Object enumVal = valueOf.invoke(field.getType(), strVal);
-                    field.set(object, enumVal);
-                } catch (Exception e) {
+            if (property.isIdColumn()) {
+                field.set(object, cursor.getLong(columnIndex));
+                return;
+            }
+
+            switch (property.getCodec()) {
+                case LONG:
+                    field.set(object, cursor.getLong(columnIndex));
+                    break;
+                case STRING:
+                    String val = cursor.getString(columnIndex);
+                    field.set(object, val != null && val.equals("null") ? null : val);
+                    break;
+                case DOUBLE:
+                    field.set(object, cursor.getDouble(columnIndex));
+                    break;
+                case BOOLEAN:
+                    field.set(object, cursor.getString(columnIndex).equals("1"));
+                    break;
+                case INTEGER:
+                    field.set(object, cursor.getInt(columnIndex));
+                    break;
+                case FLOAT:
+                    field.set(object, cursor.getFloat(columnIndex));
+                    break;
+                case SHORT:
+                    field.set(object, cursor.getShort(columnIndex));
+                    break;
+                case BIG_DECIMAL:
+                    String decimal = cursor.getString(columnIndex);
+                    field.set(object, decimal != null && decimal.equals("null") ? null : new BigDecimal(decimal));
+                    break;
+                case TIMESTAMP:
+                    field.set(object, new Timestamp(cursor.getLong(columnIndex)));
+                    break;
+                case DATE:
+                    field.set(object, new Date(cursor.getLong(columnIndex)));
+                    break;
+                case CALENDAR:
+                    Calendar c = Calendar.getInstance();
+                    c.setTimeInMillis(cursor.getLong(columnIndex));
+                    field.set(object, c);
+                    break;
+                case BYTES:
+                    byte[] bytes = cursor.getBlob(columnIndex);
+                    field.set(object, bytes == null ? "".getBytes() : bytes);
+                    break;
+                case ENUM:
+                    try {
+                        field.set(object, Enum.valueOf((Class<Enum>) field.getType(), cursor.getString(columnIndex)));
+                    } catch (Exception e) {
+                        if (ManifestHelper.isDebugEnabled()) {
+                            Log.e("Sugar", "Enum cannot be read from Sqlite3 database. Please check the type of field " + field.getName());
+                        }
+                    }
+                    break;
+                case REF:
+                    long refId = cursor.getLong(columnIndex);
+                    field.set(object, refId > 0 ? Ref.to(property.getElementType(), refId) : null);
+                    break;
+                default:
                     if (ManifestHelper.isDebugEnabled()) {
-                        Log.e("Sugar", "Enum cannot be read from Sqlite3 database. Please check the type of field " + field.getName());
+                        Log.e("Sugar", "Class cannot be read from Sqlite3 database. Please check the type of field " + field.getName() + "(" + field.getType().getName() + ")");
                     }
-                }
-            } else {
-                if (ManifestHelper.isDebugEnabled()) {
-                    Log.e("Sugar", "Class cannot be read from Sqlite3 database. Please check the type of field " + field.getName() + "(" + field.getType().getName() + ")");
-                }
             }
         } catch (IllegalArgumentException | IllegalAccessException e) {
             if (ManifestHelper.isDebugEnabled()) {
@@ -255,6 +374,19 @@ public final class ReflectionUtil {
         }
     }
 
+    public static Long getIdValue(Field idField, Object object) {
+        idField.setAccessible(true);
+        try {
+            Object value = idField.get(object);
+            return (value instanceof Number) ? ((Number) value).longValue() : null;
+        } catch (IllegalAccessException e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e("Sugar", e.getMessage());
+            }
+            return null;
+        }
+    }
+
     public static void setFieldValueForId(Object object, Long value) {
         try {
             Field field = getDeepField("id", object.getClass());
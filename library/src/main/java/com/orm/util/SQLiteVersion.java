@@ -0,0 +1,82 @@
+package com.orm.util;
+
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+/**
+ * Version of the SQLite library backing a database, which depends on the device and not on the
+ * API level Sugar is compiled against. It is queried once per database and cached.
+ */
+public final class SQLiteVersion {
+    private static final String LOG_TAG = "Sugar";
+
+    /**
+     * Multi-row VALUES clauses are supported from SQLite 3.7.11.
+     */
+    public static final int MULTI_ROW_VALUES = 3007011;
+
+    /**
+     * Row value comparisons, such as (a, b) > (?, ?), are supported from SQLite 3.15.0.
+     */
+    public static final int ROW_VALUES = 3015000;
+
+    /**
+     * INSERT ... ON CONFLICT DO UPDATE is supported from SQLite 3.24.0.
+     */
+    public static final int UPSERT = 3024000;
+
+    private static SQLiteDatabase database;
+    private static int version;
+
+    //Prevent instantiation
+    private SQLiteVersion() { }
+
+    /**
+     * @return the version of the SQLite library as major * 1000000 + minor * 1000 + patch, like
+     *         SQLITE_VERSION_NUMBER, or 0 if it couldn't be read
+     */
+    public static synchronized int get(SQLiteDatabase db) {
+        if (database != db) {
+            version = query(db);
+            database = db;
+        }
+        return version;
+    }
+
+    public static boolean isAtLeast(SQLiteDatabase db, int versionNumber) {
+        return get(db) >= versionNumber;
+    }
+
+    static int parse(String version) {
+        String[] parts = version.split("\\.");
+        int number = 0;
+        for (int i = 0; i < 3; i++) {
+            number *= 1000;
+            if (i < parts.length) {
+                try {
+                    number += Integer.parseInt(parts[i]);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return number;
+    }
+
+    private static int query(SQLiteDatabase db) {
+        SQLiteStatement statement = null;
+        try {
+            statement = db.compileStatement("SELECT sqlite_version()");
+            return parse(statement.simpleQueryForString());
+        } catch (SQLException e) {
+            Log.e(LOG_TAG, "Couldn't read SQLite version", e);
+            return 0;
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.orm.util;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the compiled {@link EntityStatements} of every entity class, so SQLite parses and plans
+ * the write statements of a table only once per database connection.
+ */
+public final class StatementCache {
+
+    private static final Map<Class<?>, EntityStatements> statements = new HashMap<>();
+
+    //Prevent instantiation
+    private StatementCache() { }
+
+    public static synchronized EntityStatements getStatements(SQLiteDatabase database, Class<?> type) {
+        EntityStatements entityStatements = statements.get(type);
+
+        if (entityStatements != null && entityStatements.getDatabase() != database) {
+            clearCache();
+            entityStatements = null;
+        }
+
+        if (entityStatements == null) {
+            entityStatements = new EntityStatements(database, type);
+            statements.put(type, entityStatements);
+        }
+
+        return entityStatements;
+    }
+
+    public static synchronized void clearCache() {
+        for (EntityStatements entityStatements : statements.values()) {
+            entityStatements.close();
+        }
+        statements.clear();
+    }
+}
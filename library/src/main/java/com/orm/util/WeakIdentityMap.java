@@ -0,0 +1,88 @@
+package com.orm.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A map whose keys are compared by identity, and which doesn't keep them from being garbage
+ * collected. Unlike a WeakHashMap, two distinct keys which are equal, such as an entity and another
+ * instance of the same row, are never mistaken for one another. Thread safe.
+ */
+public final class WeakIdentityMap<V> {
+    private final Map<IdentityReference, V> entries = new HashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private static final class IdentityReference extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityReference(Object object, ReferenceQueue<Object> queue) {
+            super(object, queue);
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof IdentityReference)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityReference) other).get();
+        }
+    }
+
+    /**
+     * @return the previous value of the key, or null
+     */
+    public synchronized V put(Object key, V value) {
+        purge();
+        return entries.put(new IdentityReference(key, queue), value);
+    }
+
+    public synchronized V get(Object key) {
+        return key != null ? entries.get(new IdentityReference(key, null)) : null;
+    }
+
+    public synchronized boolean containsKey(Object key) {
+        return key != null && entries.containsKey(new IdentityReference(key, null));
+    }
+
+    /**
+     * @return the value of the key, or null
+     */
+    public synchronized V remove(Object key) {
+        purge();
+        return key != null ? entries.remove(new IdentityReference(key, null)) : null;
+    }
+
+    public synchronized boolean isEmpty() {
+        purge();
+        return entries.isEmpty();
+    }
+
+    public synchronized int size() {
+        purge();
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private void purge() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            entries.remove(reference);
+        }
+    }
+}
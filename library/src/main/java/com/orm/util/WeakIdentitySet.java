@@ -0,0 +1,30 @@
+package com.orm.util;
+
+/**
+ * A set of objects compared by identity, which doesn't keep them from being garbage collected.
+ * Unlike a set backed by a WeakHashMap, two distinct objects which are equal, such as an entity
+ * and another instance of the same row, are never mistaken for one another. Thread safe.
+ */
+public final class WeakIdentitySet {
+    private final WeakIdentityMap<Boolean> map = new WeakIdentityMap<>();
+
+    public boolean add(Object object) {
+        return map.put(object, Boolean.TRUE) == null;
+    }
+
+    public boolean contains(Object object) {
+        return map.containsKey(object);
+    }
+
+    public boolean remove(Object object) {
+        return map.remove(object) != null;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+}
@@ -0,0 +1,114 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.orm.model.CacheableModel;
+import com.orm.model.SimpleModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarContext.getSugarContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SugarCacheTest {
+
+    @Test
+    public void testFindByIdReadsThroughCache() {
+        CacheableModel model = new CacheableModel("cached");
+        SugarRecord.save(model);
+
+        CacheableModel first = SugarRecord.findById(CacheableModel.class, model.getId());
+        assertEquals(1, SugarCache.size(CacheableModel.class));
+
+        // Bypasses SugarRecord, so the cache isn't told
+        getSugarContext().getSugarDb().getDB().execSQL("UPDATE CACHEABLE_MODEL SET NAME = 'changed'");
+        CacheableModel second = SugarRecord.findById(CacheableModel.class, model.getId());
+        assertEquals("cached", second.getName());
+        assertNotSame(first, second);
+
+        SugarCache.evict(CacheableModel.class, model.getId());
+        assertEquals("changed", SugarRecord.findById(CacheableModel.class, model.getId()).getName());
+    }
+
+    @Test
+    public void testWritesInvalidate() {
+        CacheableModel model = new CacheableModel("before");
+        SugarRecord.save(model);
+        SugarRecord.findById(CacheableModel.class, model.getId());
+
+        model.setName("after");
+        SugarRecord.save(model);
+        assertEquals(0, SugarCache.size(CacheableModel.class));
+        assertEquals("after", SugarRecord.findById(CacheableModel.class, model.getId()).getName());
+
+        SugarRecord.executeQuery("UPDATE CACHEABLE_MODEL SET NAME = 'query'");
+        assertEquals("query", SugarRecord.findById(CacheableModel.class, model.getId()).getName());
+
+        SugarRecord.delete(model);
+        assertEquals(0, SugarCache.size(CacheableModel.class));
+    }
+
+    @Test
+    public void testRowsWrittenInTransactionAreNotCachedUntilItEnds() throws InterruptedException {
+        final CacheableModel model = new CacheableModel("before");
+        SugarRecord.save(model);
+
+        SQLiteDatabase database = getSugarContext().getSugarDb().getDB();
+        database.beginTransaction();
+        try {
+            model.setName("after");
+            SugarRecord.save(model);
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+
+        // Only the thread which ran the transaction knows it is over
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                SugarRecord.findById(CacheableModel.class, model.getId());
+            }
+        });
+        reader.start();
+        reader.join();
+        assertEquals(0, SugarCache.size(CacheableModel.class));
+
+        assertEquals("after", SugarRecord.findById(CacheableModel.class, model.getId()).getName());
+        assertEquals(1, SugarCache.size(CacheableModel.class));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRowsAreEvicted() {
+        for (int i = 0; i < 3; i++) {
+            SugarRecord.save(new CacheableModel("model " + i));
+        }
+
+        List<CacheableModel> found = SugarRecord.findById(CacheableModel.class, "1", "2", "3");
+        assertEquals(3, found.size());
+        assertEquals(2, SugarCache.size(CacheableModel.class));
+
+        found = SugarRecord.findById(CacheableModel.class, "1", "2", "3");
+        assertEquals(3, found.size());
+    }
+
+    @Test
+    public void testOnlyCacheableClassesAreCached() {
+        SugarRecord.save(new SimpleModel());
+        SugarRecord.listAll(SimpleModel.class);
+
+        assertFalse(SugarCache.isCacheable(SimpleModel.class));
+        assertTrue(SugarCache.isCacheable(CacheableModel.class));
+        assertEquals(0, SugarCache.size(SimpleModel.class));
+    }
+}
@@ -0,0 +1,91 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.orm.model.SimpleAnnotatedModel;
+import com.orm.model.TestRecord;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SugarIdAllocatorTest {
+
+    @After
+    public void tearDown() {
+        SugarIdAllocator.setBlockSize(SugarIdAllocator.DEFAULT_BLOCK_SIZE);
+    }
+
+    @Test
+    public void testIdsAreAssignedBeforeSaving() {
+        SugarIdAllocator.setBlockSize(3);
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(SugarIdAllocator.assignId(new TestRecord().setName("record " + i)));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Long.valueOf(i + 1), records.get(i).getId());
+        }
+        assertEquals(0L, SugarRecord.count(TestRecord.class));
+
+        SugarRecord.saveInTx(records);
+
+        assertEquals(5L, SugarRecord.count(TestRecord.class));
+        assertEquals("record 3", SugarRecord.findById(TestRecord.class, 4L).getName());
+    }
+
+    @Test
+    public void testSqliteIdsSkipReservedBlock() {
+        SugarRecord.save(new TestRecord());
+        TestRecord assigned = SugarIdAllocator.assignId(new TestRecord());
+        assertEquals(Long.valueOf(2L), assigned.getId());
+
+        // AUTOINCREMENT continues after the reserved block even if its ids are never used
+        long id = SugarRecord.save(new TestRecord());
+        assertEquals(2L + SugarIdAllocator.DEFAULT_BLOCK_SIZE, id);
+
+        assertEquals(2L, SugarRecord.save(assigned));
+        assertEquals(3L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test
+    public void testRolledBackReservationIsDiscarded() {
+        SQLiteDatabase database = SugarContext.getSugarContext().getSugarDb().getDB();
+        database.beginTransaction();
+        try {
+            assertEquals(Long.valueOf(1L), SugarIdAllocator.assignId(new TestRecord()).getId());
+        } finally {
+            database.endTransaction();
+        }
+
+        // The next block starts after the rolled back one, whose first id is already given
+        assertEquals(Long.valueOf(1L + SugarIdAllocator.DEFAULT_BLOCK_SIZE), SugarIdAllocator.assignId(new TestRecord()).getId());
+        assertEquals(1L + 2 * SugarIdAllocator.DEFAULT_BLOCK_SIZE, SugarRecord.save(new TestRecord()));
+    }
+
+    @Test
+    public void testAnnotatedModel() {
+        SimpleAnnotatedModel model = SugarIdAllocator.assignId(new SimpleAnnotatedModel());
+        assertNotNull(model.getId());
+
+        assertEquals(model.getId().longValue(), SugarRecord.save(model));
+        assertTrue(SugarRecord.findById(SimpleAnnotatedModel.class, model.getId()) != null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotAnEntity() {
+        SugarIdAllocator.assignId(new Object());
+    }
+}
@@ -0,0 +1,120 @@
+package com.orm;
+
+import com.orm.model.SimpleModel;
+import com.orm.model.StringFieldExtendedModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarContext.getSugarContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SugarQueryCacheTest {
+
+    @Before
+    public void setUp() {
+        SugarQueryCache.resetStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        SugarQueryCache.setMaxBytes(SugarQueryCache.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    public void testCachedListIsReadOnce() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+        SugarRecord.save(new StringFieldExtendedModel("second"));
+
+        List<StringFieldExtendedModel> first = Select.from(StringFieldExtendedModel.class).cached().list();
+        assertEquals(1, SugarQueryCache.getEntryCount());
+
+        // Bypasses SugarRecord, so the cache isn't told
+        getSugarContext().getSugarDb().getDB().execSQL("DELETE FROM STRING_FIELD_EXTENDED_MODEL");
+        List<StringFieldExtendedModel> second = Select.from(StringFieldExtendedModel.class).cached().list();
+        assertEquals(2, second.size());
+        assertEquals("first", second.get(0).getString());
+        assertNotSame(first.get(0), second.get(0));
+        assertEquals(1, SugarQueryCache.getHitCount());
+        assertEquals(1, SugarQueryCache.getMissCount());
+
+        assertEquals(0, Select.from(StringFieldExtendedModel.class).list().size());
+    }
+
+    @Test
+    public void testQueriesAreKeyedByArguments() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+        SugarRecord.save(new StringFieldExtendedModel("second"));
+
+        assertEquals("first", Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("first")).cached().first().getString());
+        assertEquals("second", Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("second")).cached().first().getString());
+        assertEquals(2, SugarQueryCache.getEntryCount());
+    }
+
+    @Test
+    public void testWritesInvalidateTheirTable() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+        SugarRecord.save(new SimpleModel());
+        Select.from(StringFieldExtendedModel.class).cached().list();
+        Select.from(SimpleModel.class).cached().list();
+        assertEquals(2, SugarQueryCache.getEntryCount());
+
+        SugarRecord.save(new StringFieldExtendedModel("second"));
+        assertEquals(1, SugarQueryCache.getEntryCount());
+        assertEquals(2, Select.from(StringFieldExtendedModel.class).cached().list().size());
+
+        SugarRecord.deleteAll(StringFieldExtendedModel.class);
+        assertEquals(0, Select.from(StringFieldExtendedModel.class).cached().list().size());
+
+        SugarRecord.executeQuery("DELETE FROM SIMPLE_MODEL");
+        assertEquals(0, Select.from(SimpleModel.class).cached().list().size());
+    }
+
+    @Test
+    public void testCountIsCached() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+
+        assertEquals(1, Select.from(StringFieldExtendedModel.class).cached().count());
+        getSugarContext().getSugarDb().getDB().execSQL("DELETE FROM STRING_FIELD_EXTENDED_MODEL");
+        assertEquals(1, Select.from(StringFieldExtendedModel.class).cached().count());
+
+        SugarRecord.save(new StringFieldExtendedModel("second"));
+        assertEquals(1, Select.from(StringFieldExtendedModel.class).cached().count());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResultsAreEvicted() {
+        for (int i = 0; i < 10; i++) {
+            SugarRecord.save(new StringFieldExtendedModel("model " + i));
+        }
+        Select.from(StringFieldExtendedModel.class).where(Condition.prop("string").eq("model 0")).cached().list();
+        long size = SugarQueryCache.getSize();
+
+        SugarQueryCache.setMaxBytes(size);
+        Select.from(StringFieldExtendedModel.class).where(Condition.prop("string").eq("model 1")).cached().list();
+        assertEquals(1, SugarQueryCache.getEntryCount());
+        assertEquals(1, SugarQueryCache.getEvictionCount());
+
+        // Larger than the whole cache, so recording stops while every row is still read
+        assertEquals(10, Select.from(StringFieldExtendedModel.class).cached().list().size());
+        assertEquals(1, SugarQueryCache.getEntryCount());
+
+        SugarQueryCache.setMaxBytes(0);
+        assertEquals(0, SugarQueryCache.getEntryCount());
+        Select.from(StringFieldExtendedModel.class).cached().list();
+        assertEquals(0, SugarQueryCache.getSize());
+    }
+}
@@ -0,0 +1,130 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteException;
+
+import com.orm.model.IntUniqueModel;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.SimpleExtendedModel;
+import com.orm.model.SimpleModel;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SugarSessionTest {
+
+    @After
+    public void tearDown() {
+        SugarSession session = SugarSession.current();
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testSameRowIsSameInstance() {
+        SugarSession session = SugarSession.open();
+        SimpleModel model = new SimpleModel();
+        SugarRecord.save(model);
+
+        SimpleModel found = SugarRecord.findById(SimpleModel.class, model.getId());
+        assertSame(model, found);
+        session.evict(model);
+
+        found = SugarRecord.findById(SimpleModel.class, model.getId());
+        assertNotSame(model, found);
+        assertSame(found, SugarRecord.findById(SimpleModel.class, model.getId()));
+        assertSame(found, SugarRecord.listAll(SimpleModel.class).get(0));
+        session.close();
+
+        assertNotSame(found, SugarRecord.findById(SimpleModel.class, model.getId()));
+    }
+
+    @Test
+    public void testRelationsReuseSessionEntities() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        SugarRecord.save(simple);
+        SugarRecord.save(new RelationshipExtendedModel(simple));
+        SugarRecord.save(new RelationshipExtendedModel(simple));
+
+        SugarSession.open();
+        SimpleExtendedModel found = SugarRecord.first(SimpleExtendedModel.class);
+        for (RelationshipExtendedModel relationship : SugarRecord.listAll(RelationshipExtendedModel.class)) {
+            assertSame(found, relationship.getSimple());
+        }
+    }
+
+    @Test
+    public void testFlushWritesChangedEntities() {
+        for (int i = 0; i < 2; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr("model " + i);
+            SugarRecord.save(model);
+        }
+
+        SugarSession session = SugarSession.open();
+        SimpleModel first = SugarRecord.findById(SimpleModel.class, 1L);
+        SugarRecord.findById(SimpleModel.class, 2L);
+        assertEquals(0, session.flush());
+
+        first.setStr("changed");
+        assertEquals(1, session.flush());
+        assertEquals(0, session.flush());
+        session.close();
+
+        assertEquals("changed", SugarRecord.findById(SimpleModel.class, 1L).getStr());
+    }
+
+    @Test
+    public void testFailedFlushWritesNothing() {
+        SugarRecord.save(new IntUniqueModel(1));
+        SugarRecord.save(new IntUniqueModel(2));
+
+        SugarSession session = SugarSession.open();
+        IntUniqueModel first = SugarRecord.findById(IntUniqueModel.class, 1L);
+        IntUniqueModel second = SugarRecord.findById(IntUniqueModel.class, 2L);
+        first.setValue(3);
+        second.setValue(3);
+        try {
+            session.flush();
+            fail("Expected the unique constraint to fail");
+        } catch (SQLiteException e) {
+            assertEquals(0, SugarRecord.count(IntUniqueModel.class, "VALUE = ?", "3"));
+        }
+
+        second.setValue(4);
+        assertEquals(2, session.flush());
+        assertEquals(1, SugarRecord.count(IntUniqueModel.class, "VALUE = ?", "3"));
+        assertEquals(1, SugarRecord.count(IntUniqueModel.class, "VALUE = ?", "4"));
+    }
+
+    @Test
+    public void testDeleteEvicts() {
+        SugarSession session = SugarSession.open();
+        SimpleModel model = new SimpleModel();
+        SugarRecord.save(model);
+
+        assertTrue(session.contains(model));
+        SugarRecord.delete(model);
+
+        assertEquals(0, session.size());
+        assertNull(SugarRecord.findById(SimpleModel.class, model.getId()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOneSessionPerThread() {
+        SugarSession.open();
+        SugarSession.open();
+    }
+}
@@ -0,0 +1,106 @@
+package com.orm;
+
+import com.orm.model.TestRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SugarWriteQueueTest {
+    private SugarWriteQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new SugarWriteQueue(100, 10000L);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        queue.close();
+    }
+
+    @Test
+    public void testSaveAndDelete() throws Exception {
+        TestRecord record = new TestRecord().setName("queued");
+        Future<Long> saved = queue.save(record);
+
+        assertEquals(Long.valueOf(1L), saved.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queue.findById(TestRecord.class, 1L).getName());
+
+        Future<Boolean> deleted = queue.delete(record);
+        assertNull(queue.findById(TestRecord.class, 1L));
+        assertTrue(deleted.get());
+    }
+
+    @Test
+    public void testRepeatedWritesAreCoalesced() throws Exception {
+        TestRecord record = new TestRecord().setName("first");
+        List<Future<Long>> futures = new ArrayList<>();
+        futures.add(queue.save(record));
+        record.setName("second");
+        futures.add(queue.save(record));
+        futures.add(queue.save(record));
+        queue.flush();
+
+        for (Future<Long> future : futures) {
+            assertEquals(record.getId(), future.get());
+        }
+        assertEquals(1L, SugarRecord.count(TestRecord.class));
+        assertEquals("second", SugarRecord.findById(TestRecord.class, record.getId()).getName());
+    }
+
+    @Test
+    public void testBatchSizeTriggersCommit() throws Exception {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            futures.add(queue.save(new TestRecord().setName("record " + i)));
+        }
+
+        // Two full batches are committed without waiting for the delay
+        futures.get(199).get(5, TimeUnit.SECONDS);
+        queue.close();
+        assertEquals(250L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test
+    public void testInterruptCancelsPendingWrites() throws Exception {
+        Future<Long> saved = queue.save(new TestRecord().setName("pending"));
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("SugarWriteQueue".equals(thread.getName())) {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+
+        try {
+            saved.get(5, TimeUnit.SECONDS);
+            fail("The pending write should have been cancelled");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+        assertEquals(0L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedQueue() throws InterruptedException {
+        queue.close();
+        queue.save(new TestRecord());
+    }
+}
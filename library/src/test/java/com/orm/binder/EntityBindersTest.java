@@ -0,0 +1,57 @@
+package com.orm.binder;
+
+import android.content.ContentValues;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.NoSugarModel;
+import com.orm.model.SimpleAnnotatedModel;
+import com.orm.model.TestRecord;
+import com.orm.util.EntitySnapshots;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class EntityBindersTest {
+
+    @Test
+    public void testGeneratedBinderIsFound() {
+        EntityBinder<TestRecord> binder = EntityBinders.getBinder(TestRecord.class);
+        assertNotNull(binder);
+        assertSame(binder, EntityBinders.getBinder(TestRecord.class));
+    }
+
+    @Test
+    public void testNoBinderWithoutReachableColumns() {
+        assertNull(EntityBinders.getBinder(SimpleAnnotatedModel.class));
+        assertNull(EntityBinders.getBinder(NoSugarModel.class));
+    }
+
+    @Test
+    public void testSaveAndLoadThroughBinder() {
+        TestRecord record = new TestRecord().setName("binder");
+        long id = SugarRecord.save(record);
+
+        TestRecord loaded = SugarRecord.findById(TestRecord.class, id);
+        assertEquals(Long.valueOf(id), loaded.getId());
+        assertEquals("binder", loaded.getName());
+    }
+
+    @Test
+    public void testColumnValuesThroughBinder() {
+        TestRecord record = new TestRecord().setName("binder");
+
+        ContentValues values = EntitySnapshots.getColumnValues(record, null);
+        assertEquals(1, values.size());
+        assertEquals("binder", values.getAsString("NAME"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.orm.inflater;
+
+import android.database.Cursor;
+
+import com.orm.SugarApp;
+import com.orm.SugarContext;
+import com.orm.SugarRecord;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.SimpleExtendedModel;
+import com.orm.model.SimpleModel;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class EntityInflaterTest {
+
+    @Test
+    public void testInflaterIsReusedAcrossRowsAndCursors() {
+        for (int i = 0; i < 3; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr("model " + i);
+            model.setInteger(i);
+            model.setBool(i % 2 == 0);
+            SugarRecord.save(model);
+        }
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        SugarRecord.save(simple);
+        SugarRecord.save(new RelationshipExtendedModel(simple));
+
+        EntityInflater inflater = new EntityInflater()
+                .withEntitiesMap(SugarContext.getSugarContext().getEntitiesMap());
+
+        Cursor cursor = Select.from(SimpleModel.class).orderBy("ID").getCursor();
+        inflater.withCursor(cursor);
+        int row = 0;
+        while (cursor.moveToNext()) {
+            SimpleModel model = new SimpleModel();
+            inflater.withObject(model).inflate();
+            assertEquals(Long.valueOf(row + 1), model.getId());
+            assertEquals("model " + row, model.getStr());
+            assertEquals(row, model.getInteger());
+            assertEquals(row % 2 == 0, model.isBool());
+            row++;
+        }
+        cursor.close();
+        assertEquals(3, row);
+
+        cursor = Select.from(RelationshipExtendedModel.class).getCursor();
+        assertTrue(cursor.moveToFirst());
+        RelationshipExtendedModel relationship = new RelationshipExtendedModel();
+        inflater.withCursor(cursor).withObject(relationship).inflate();
+        cursor.close();
+        assertEquals(Long.valueOf(1L), relationship.getSimple().getId());
+    }
+}
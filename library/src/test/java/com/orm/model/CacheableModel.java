@@ -0,0 +1,24 @@
+package com.orm.model;
+
+import com.orm.SugarRecord;
+import com.orm.annotation.Cacheable;
+
+@Cacheable(maxSize = 2)
+public class CacheableModel extends SugarRecord {
+    private String name;
+
+    public CacheableModel() {
+    }
+
+    public CacheableModel(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
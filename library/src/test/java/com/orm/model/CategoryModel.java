@@ -0,0 +1,44 @@
+package com.orm.model;
+
+import com.orm.SugarRecord;
+import com.orm.annotation.FetchDepth;
+
+public class CategoryModel extends SugarRecord {
+    private String name;
+    private CategoryModel parent;
+
+    @FetchDepth(1)
+    private CategoryModel related;
+
+    public CategoryModel() {
+    }
+
+    public CategoryModel(String name, CategoryModel parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public CategoryModel getParent() {
+        return parent;
+    }
+
+    public void setParent(CategoryModel parent) {
+        this.parent = parent;
+    }
+
+    public CategoryModel getRelated() {
+        return related;
+    }
+
+    public void setRelated(CategoryModel related) {
+        this.related = related;
+    }
+}
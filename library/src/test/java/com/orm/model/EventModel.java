@@ -0,0 +1,26 @@
+package com.orm.model;
+
+import com.orm.SugarRecord;
+
+import java.util.Date;
+
+public class EventModel extends SugarRecord {
+    private Date date;
+    private boolean done;
+
+    public EventModel() {
+    }
+
+    public EventModel(Date date, boolean done) {
+        this.date = date;
+        this.done = done;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
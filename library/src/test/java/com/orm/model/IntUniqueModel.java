@@ -16,4 +16,8 @@ public class IntUniqueModel extends SugarRecord {
     public IntUniqueModel(int value) {
         this.value = value;
     }
+
+    public void setValue(int value) {
+        this.value = value;
+    }
 }
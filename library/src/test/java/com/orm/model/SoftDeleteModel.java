@@ -0,0 +1,20 @@
+package com.orm.model;
+
+import com.orm.SugarRecord;
+
+public class SoftDeleteModel extends SugarRecord {
+    private boolean deleted;
+
+    public SoftDeleteModel() {
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public boolean delete() {
+        deleted = true;
+        return save() != -1;
+    }
+}
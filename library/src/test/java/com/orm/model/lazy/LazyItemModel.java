@@ -0,0 +1,18 @@
+package com.orm.model.lazy;
+
+import com.orm.SugarRecord;
+
+public class LazyItemModel extends SugarRecord {
+    private LazyOwnerModel owner;
+
+    public LazyItemModel() {
+    }
+
+    public LazyItemModel(LazyOwnerModel owner) {
+        this.owner = owner;
+    }
+
+    public LazyOwnerModel getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,31 @@
+package com.orm.model.lazy;
+
+import com.orm.Ref;
+import com.orm.SugarRecord;
+import com.orm.annotation.FetchType;
+import com.orm.annotation.OneToMany;
+import com.orm.model.SimpleExtendedModel;
+
+import java.util.List;
+
+public class LazyOwnerModel extends SugarRecord {
+    @OneToMany(targetField = "owner", fetch = FetchType.LAZY)
+    private List<LazyItemModel> items;
+
+    private Ref<SimpleExtendedModel> simple;
+
+    public LazyOwnerModel() {
+    }
+
+    public LazyOwnerModel(Ref<SimpleExtendedModel> simple) {
+        this.simple = simple;
+    }
+
+    public List<LazyItemModel> getItems() {
+        return items;
+    }
+
+    public Ref<SimpleExtendedModel> getSimple() {
+        return simple;
+    }
+}
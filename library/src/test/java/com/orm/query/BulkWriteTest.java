@@ -0,0 +1,113 @@
+package com.orm.query;
+
+import com.orm.SugarApp;
+import com.orm.SugarCache;
+import com.orm.SugarRecord;
+import com.orm.SugarSession;
+import com.orm.model.CacheableModel;
+import com.orm.model.EventModel;
+import com.orm.model.IntegerFieldExtendedModel;
+import com.orm.model.StringFieldExtendedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Date;
+import java.util.List;
+
+import static com.orm.query.Assignment.increment;
+import static com.orm.query.Assignment.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class BulkWriteTest {
+
+    @Test
+    public void testUpdateSetsMatchingRows() {
+        SugarRecord.save(new EventModel(new Date(1000L), false));
+        SugarRecord.save(new EventModel(new Date(2000L), false));
+        SugarRecord.save(new EventModel(new Date(3000L), false));
+
+        int updated = Select.from(EventModel.class)
+                .where(Condition.prop("date").gt(new Date(1500L)))
+                .update(set("done", true), set("date", new Date(5000L)));
+
+        assertEquals(2, updated);
+        List<EventModel> done = Select.from(EventModel.class).where(Condition.prop("done").eq(true)).list();
+        assertEquals(2, done.size());
+        assertEquals(5000L, done.get(0).getDate().getTime());
+        assertEquals(1, Select.from(EventModel.class).where(Condition.prop("done").eq(false)).count());
+    }
+
+    @Test
+    public void testIncrement() {
+        SugarRecord.save(new IntegerFieldExtendedModel(1));
+        SugarRecord.save(new IntegerFieldExtendedModel(5));
+
+        assertEquals(2, Select.from(IntegerFieldExtendedModel.class).update(increment("raw_integer", 10)));
+        List<IntegerFieldExtendedModel> models = Select.from(IntegerFieldExtendedModel.class).orderBy("id").list();
+        assertEquals(11, models.get(0).getInt());
+        assertEquals(15, models.get(1).getInt());
+    }
+
+    @Test
+    public void testDeleteRemovesMatchingRows() {
+        SugarRecord.save(new EventModel(new Date(1000L), true));
+        SugarRecord.save(new EventModel(new Date(2000L), false));
+        SugarRecord.save(new EventModel(new Date(3000L), true));
+
+        assertEquals(2, Select.from(EventModel.class).where(Condition.prop("done").eq(true)).delete());
+        assertEquals(1, SugarRecord.count(EventModel.class));
+        assertEquals(0, Select.from(EventModel.class).where(Condition.prop("done").eq(true)).delete());
+    }
+
+    @Test
+    public void testStringArgumentsAreBoundAsGiven() {
+        SugarRecord.save(new StringFieldExtendedModel("true"));
+        SugarRecord.save(new StringFieldExtendedModel("1"));
+
+        assertEquals(1, Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("true"))
+                .update(set("string", "false")));
+        assertEquals(1, Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("false"))
+                .delete());
+        assertEquals("1", Select.from(StringFieldExtendedModel.class).first().getString());
+    }
+
+    @Test
+    public void testWritesInvalidateCaches() {
+        CacheableModel model = new CacheableModel("before");
+        SugarRecord.save(model);
+        SugarRecord.findById(CacheableModel.class, model.getId());
+        assertEquals("before", Select.from(CacheableModel.class).cached().first().getName());
+
+        Select.from(CacheableModel.class).update(set("name", "after"));
+
+        assertEquals(0, SugarCache.size(CacheableModel.class));
+        assertEquals("after", SugarRecord.findById(CacheableModel.class, model.getId()).getName());
+        assertEquals("after", Select.from(CacheableModel.class).cached().first().getName());
+    }
+
+    @Test
+    public void testWritesEvictSessionEntities() {
+        SugarRecord.save(new EventModel(new Date(1000L), false));
+
+        SugarSession session = SugarSession.open();
+        try {
+            EventModel held = Select.from(EventModel.class).first();
+            assertTrue(session.contains(held));
+
+            Select.from(EventModel.class).update(set("done", true));
+            assertFalse(session.contains(held));
+            assertTrue(SugarRecord.findById(EventModel.class, held.getId()).isDone());
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.orm.query;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.EventModel;
+import com.orm.model.FloatFieldExtendedModel;
+import com.orm.model.StringFieldExtendedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class PageTest {
+
+    @Test
+    public void testPagesFollowSortKeyThenId() {
+        // Dates repeat, so the id breaks the ties
+        for (int i = 0; i < 7; i++) {
+            SugarRecord.save(new EventModel(new Date(1000L * (i / 2)), i % 2 == 0));
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Page<EventModel> page = Select.from(EventModel.class).page("date", 3);
+        while (true) {
+            for (EventModel event : page.getItems()) {
+                ids.add(event.getId());
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = Select.from(EventModel.class).pageAfter("date", page.getNextToken(), 3);
+        }
+
+        assertEquals(7, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i).longValue());
+        }
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextToken());
+    }
+
+    @Test
+    public void testPagesByFloatColumn() {
+        // Stored as the doubles of the floats, which their decimal text doesn't match
+        for (int i = 1; i <= 5; i++) {
+            SugarRecord.save(new FloatFieldExtendedModel(i / 10f));
+        }
+
+        List<Float> values = new ArrayList<>();
+        Page<FloatFieldExtendedModel> page = Select.from(FloatFieldExtendedModel.class).page("raw_float", 2);
+        while (true) {
+            for (FloatFieldExtendedModel model : page.getItems()) {
+                values.add(model.getRawFloat());
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = Select.from(FloatFieldExtendedModel.class).pageAfter("raw_float", page.getNextToken(), 2);
+        }
+
+        assertEquals(5, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals((i + 1) / 10f, values.get(i), 0f);
+        }
+    }
+
+    @Test
+    public void testPageAfterKeepsConditions() {
+        for (int i = 0; i < 6; i++) {
+            SugarRecord.save(new EventModel(new Date(1000L * i), i % 2 == 0));
+        }
+
+        Select<EventModel> done = Select.from(EventModel.class).where(Condition.prop("done").eq(true));
+        Page<EventModel> first = done.page("date", 2);
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasNext());
+
+        EventModel last = first.getItems().get(1);
+        Page<EventModel> second = done.pageAfter("date", last.getDate(), last.getId(), 2);
+        assertEquals(1, second.getItems().size());
+        assertEquals(4000L, second.getItems().get(0).getDate().getTime());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void testPagesById() {
+        for (int i = 0; i < 5; i++) {
+            SugarRecord.save(new StringFieldExtendedModel("model " + i));
+        }
+
+        Page<StringFieldExtendedModel> first = Select.from(StringFieldExtendedModel.class).page("id", 4);
+        assertEquals("4", first.getNextToken());
+        Page<StringFieldExtendedModel> second = Select.from(StringFieldExtendedModel.class)
+                .pageAfter("id", first.getNextToken(), 4);
+        assertEquals("model 4", second.getItems().get(0).getString());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void testOffsetIsApplied() {
+        for (int i = 0; i < 5; i++) {
+            SugarRecord.save(new StringFieldExtendedModel("model " + i));
+        }
+
+        List<StringFieldExtendedModel> models = Select.from(StringFieldExtendedModel.class)
+                .orderBy("id").limit("2").offset("1").list();
+        assertEquals(2, models.size());
+        assertEquals("model 1", models.get(0).getString());
+
+        assertEquals("model 3", Select.from(StringFieldExtendedModel.class)
+                .orderBy("id").offset("3").first().getString());
+        assertEquals(1, Select.from(StringFieldExtendedModel.class).offset("4").list().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSortColumnIsRejected() {
+        Select.from(EventModel.class).page("missing", 10);
+    }
+}
@@ -0,0 +1,117 @@
+package com.orm.query;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.EventModel;
+import com.orm.model.StringFieldExtendedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class PreparedSelectTest {
+
+    @Test
+    public void testBindRunsWithNewArguments() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+        SugarRecord.save(new StringFieldExtendedModel("second"));
+
+        PreparedSelect<StringFieldExtendedModel> byString = Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("first"))
+                .compile();
+
+        assertEquals("first", byString.first().getString());
+        assertEquals("second", byString.bind("second").first().getString());
+        assertEquals(1, byString.bind("second").list().size());
+        assertNull(byString.bind("third").first());
+        assertEquals("first", byString.first().getString());
+    }
+
+    @Test
+    public void testCountReusesStatement() {
+        SugarRecord.save(new EventModel(new Date(1000L), false));
+        SugarRecord.save(new EventModel(new Date(2000L), true));
+
+        PreparedSelect<EventModel> after = Select.from(EventModel.class)
+                .where("date > ?")
+                .compile();
+
+        assertEquals(2, after.bind(new Date(500L)).count());
+        assertEquals(1, after.bind(new Date(1500L)).count());
+        assertEquals(0, after.bind(new Date(2500L)).count());
+    }
+
+    @Test
+    public void testIterator() {
+        SugarRecord.save(new EventModel(new Date(1000L), false));
+        SugarRecord.save(new EventModel(new Date(2000L), true));
+
+        PreparedSelect<EventModel> byDone = Select.from(EventModel.class)
+                .where("done = ?")
+                .orderBy("date")
+                .compile();
+
+        Iterator<EventModel> iterator = byDone.bind(true).iterator();
+        assertEquals(2000L, iterator.next().getDate().getTime());
+        assertFalse(iterator.hasNext());
+
+        List<EventModel> notDone = byDone.bind(false).list();
+        assertEquals(1, notDone.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArgumentsMustMatchParameters() {
+        Select.from(StringFieldExtendedModel.class)
+                .where("string = ? AND string != '?'")
+                .compile()
+                .bind("first", "second");
+    }
+
+    @Test
+    public void testNumberedParametersAndQuotedIdentifiers() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+        SugarRecord.save(new StringFieldExtendedModel("second"));
+
+        PreparedSelect<StringFieldExtendedModel> byString = Select.from(StringFieldExtendedModel.class)
+                .where("\"STRING\" = ?1 OR (\"STRING\" != ?1 AND \"STRING\" = ?)")
+                .compile();
+
+        assertEquals(2, byString.bind("first", "second").list().size());
+        assertEquals(1, byString.bind("first", "third").count());
+    }
+
+    @Test
+    public void testQueriesAndCountAgree() {
+        SugarRecord.save(new StringFieldExtendedModel("true"));
+        SugarRecord.save(new StringFieldExtendedModel("1"));
+
+        PreparedSelect<StringFieldExtendedModel> byString = Select.from(StringFieldExtendedModel.class)
+                .where("string = ?")
+                .compile()
+                .bind("true");
+
+        assertEquals(1, byString.count());
+        assertEquals(1, byString.list().size());
+        assertEquals("true", byString.first().getString());
+        assertEquals("true", byString.iterator().next().getString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullArgumentIsRejected() {
+        Select.from(StringFieldExtendedModel.class)
+                .where("string = ?")
+                .compile()
+                .bind((Object) null);
+    }
+}
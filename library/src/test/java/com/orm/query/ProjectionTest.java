@@ -0,0 +1,89 @@
+package com.orm.query;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.EventModel;
+import com.orm.model.StringFieldExtendedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class ProjectionTest {
+
+    static final class EventSummary {
+        private Date date;
+        private boolean done;
+        private String label;
+
+        private EventSummary() {
+        }
+    }
+
+    @Test
+    public void testIntoReadsSelectedColumns() {
+        SugarRecord.save(new EventModel(new Date(1000L), true));
+        SugarRecord.save(new EventModel(new Date(2000L), false));
+
+        List<EventSummary> summaries = Select.from(EventModel.class)
+                .select("date", "done")
+                .orderBy("date")
+                .into(EventSummary.class);
+
+        assertEquals(2, summaries.size());
+        assertEquals(1000L, summaries.get(0).date.getTime());
+        assertTrue(summaries.get(0).done);
+        assertFalse(summaries.get(1).done);
+        assertNull(summaries.get(0).label);
+    }
+
+    @Test
+    public void testIntoMatchesAliases() {
+        SugarRecord.save(new EventModel(new Date(1000L), true));
+
+        List<EventSummary> summaries = Select.from(EventModel.class)
+                .select("date", "'event ' || ID AS label")
+                .into(EventSummary.class);
+
+        assertEquals("event 1", summaries.get(0).label);
+        assertFalse(summaries.get(0).done);
+    }
+
+    @Test
+    public void testPluck() {
+        SugarRecord.save(new StringFieldExtendedModel("first"));
+        SugarRecord.save(new StringFieldExtendedModel(null));
+        SugarRecord.save(new StringFieldExtendedModel("third"));
+
+        Select<StringFieldExtendedModel> select = Select.from(StringFieldExtendedModel.class).orderBy("id");
+        assertArrayEquals(new long[] { 1, 2, 3 }, select.pluckLong("id"));
+        assertArrayEquals(new double[] { 1.5, 2.5, 3.5 }, select.pluckDouble("id + 0.5"), 0);
+        assertArrayEquals(new String[] { "first", null, "third" }, select.pluckString("string"));
+
+        assertArrayEquals(new long[] { 3 }, Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("third")).pluckLong("id"));
+        assertEquals(0, Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("missing")).pluckString("string").length);
+    }
+
+    @Test
+    public void testPluckBindsStringArgumentsAsGiven() {
+        SugarRecord.save(new StringFieldExtendedModel("true"));
+        SugarRecord.save(new StringFieldExtendedModel("1"));
+
+        assertArrayEquals(new long[] { 1 }, Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("true")).pluckLong("id"));
+    }
+}
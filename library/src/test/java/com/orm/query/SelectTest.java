@@ -1,6 +1,10 @@
 package com.orm.query;
 
 import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.EnumFieldExtendedModel;
+import com.orm.model.EventModel;
+import com.orm.model.StringFieldExtendedModel;
 import com.orm.model.TestRecord;
 
 import org.junit.Test;
@@ -8,6 +12,10 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
 import static junit.framework.Assert.assertEquals;
 
 @RunWith(RobolectricTestRunner.class)
@@ -25,7 +33,7 @@ public final class SelectTest {
         assertEquals("(test = ?  AND prop = ? )", where.getWhereCond());
         assertEquals(2, where.getArgs().length);
         assertEquals("satya", where.getArgs()[0]);
-        assertEquals("2", where.getArgs()[1]);
+        assertEquals(2, where.getArgs()[1]);
     }
 
     @Test
@@ -39,7 +47,7 @@ public final class SelectTest {
         assertEquals("(test = ?  AND prop = ? )", where.getWhereCond());
         assertEquals(2, where.getArgs().length);
         assertEquals("satya", where.getArgs()[0]);
-        assertEquals("2", where.getArgs()[1]);
+        assertEquals(2, where.getArgs()[1]);
     }
 
     @Test
@@ -82,7 +90,7 @@ public final class SelectTest {
         assertEquals("(test = ?  OR prop = ? )", where.getWhereCond());
         assertEquals(2, where.getArgs().length);
         assertEquals("satya", where.getArgs()[0]);
-        assertEquals("2", where.getArgs()[1]);
+        assertEquals(2, where.getArgs()[1]);
     }
 
     @Test
@@ -97,7 +105,7 @@ public final class SelectTest {
         assertEquals("(test = ? ) AND (prop = ? )", where.getWhereCond());
         assertEquals(2, where.getArgs().length);
         assertEquals("satya", where.getArgs()[0]);
-        assertEquals("2", where.getArgs()[1]);
+        assertEquals(2, where.getArgs()[1]);
     }
 
     @Test
@@ -112,7 +120,7 @@ public final class SelectTest {
         assertEquals("(test = ? ) OR (prop = ? )", where.getWhereCond());
         assertEquals(2, where.getArgs().length);
         assertEquals("satya", where.getArgs()[0]);
-        assertEquals("2", where.getArgs()[1]);
+        assertEquals(2, where.getArgs()[1]);
     }
 
     @Test
@@ -136,4 +144,97 @@ public final class SelectTest {
         assertEquals("(test IS NOT NULL )", where.getWhereCond());
         assertEquals(0, where.getArgs().length);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testValuesAreBoundInStoredForm() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(1000L);
+        TestRecord record = new TestRecord();
+        record.setId(7L);
+        Select<TestRecord> where = Select.from(TestRecord.class).where(
+                Condition.prop("date").gt(new Date(2000L)),
+                Condition.prop("calendar").lt(calendar),
+                Condition.prop("flag").eq(true),
+                Condition.prop("kind").eq(EnumFieldExtendedModel.OverrideEnum.ONE),
+                Condition.prop("record").eq(record));
+
+        Object[] args = where.getArgs();
+        assertEquals(2000L, args[0]);
+        assertEquals(1000L, args[1]);
+        assertEquals(1, args[2]);
+        assertEquals("ONE", args[3]);
+        assertEquals(7L, args[4]);
+    }
+
+    @Test
+    public void testNumbersAreBoundAsNumbers() {
+        SugarRecord.save(new StringFieldExtendedModel("ab"));
+        SugarRecord.save(new StringFieldExtendedModel("abcd"));
+
+        // An expression has no affinity, so a number bound as text would compare greater than any length
+        Select<StringFieldExtendedModel> longer = Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("length(string)").gt(3));
+
+        assertEquals(1, longer.list().size());
+        assertEquals(1, longer.count());
+        assertEquals("abcd", longer.first().getString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullComparisonIsRejected() {
+        Select.from(TestRecord.class).where(Condition.prop("test").gt(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullLikeIsRejected() {
+        Select.from(TestRecord.class).where(Condition.prop("test").like(null));
+    }
+
+    @Test
+    public void testLikeIsBoundAsParameter() {
+        Select<TestRecord> where = Select.from(TestRecord.class).where(Condition.prop("test").like("o'%"));
+        assertEquals("(test LIKE ? )", where.getWhereCond());
+        assertEquals("o'%", where.getArgs()[0]);
+    }
+
+    @Test
+    public void testDateRangeQuery() {
+        SugarRecord.save(new EventModel(new Date(1000L), false));
+        SugarRecord.save(new EventModel(new Date(2000L), true));
+        SugarRecord.save(new EventModel(new Date(3000L), true));
+
+        List<EventModel> events = Select.from(EventModel.class)
+                .where(Condition.prop("date").gt(new Date(1500L)), Condition.prop("done").eq(true))
+                .orderBy("date")
+                .list();
+
+        assertEquals(2, events.size());
+        assertEquals(2000L, events.get(0).getDate().getTime());
+        assertEquals(1, Select.from(EventModel.class).where(Condition.prop("date").lt(new Date(1500L))).count());
+    }
+
+    @Test
+    public void testStringValuesAreBoundAsGiven() {
+        SugarRecord.save(new StringFieldExtendedModel("true"));
+        SugarRecord.save(new StringFieldExtendedModel("1"));
+
+        List<StringFieldExtendedModel> models = Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq("true"))
+                .list();
+
+        assertEquals(1, models.size());
+        assertEquals("true", models.get(0).getString());
+    }
+
+    @Test
+    public void testRawWhereReplacesBooleanArguments() {
+        SugarRecord.save(new EventModel(new Date(1000L), false));
+        SugarRecord.save(new EventModel(new Date(2000L), true));
+
+        Select<EventModel> done = Select.from(EventModel.class).where("done = ?", new String[] { "true" });
+
+        assertEquals(1, done.list().size());
+        assertEquals(1, done.count());
+        assertEquals(2000L, done.first().getDate().getTime());
+    }
+}
@@ -0,0 +1,83 @@
+package com.orm.record;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.NoSugarModel;
+import com.orm.model.TestRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class ChunkedTxTest {
+
+    private static final class RecordingCallback<T> implements SugarRecord.ChunkCallback<T> {
+        private final List<Integer> processed = new ArrayList<>();
+        private final List<T> failed = new ArrayList<>();
+
+        @Override
+        public void onChunkCompleted(int processed, int total, List<T> failed) {
+            assertEquals(250, total);
+            this.processed.add(processed);
+            this.failed.addAll(failed);
+        }
+    }
+
+    @Test
+    public void testSaveInChunks() {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 249; i++) {
+            objects.add(new TestRecord().setName("record " + i));
+        }
+        NoSugarModel invalid = new NoSugarModel();
+        objects.add(120, invalid);
+
+        RecordingCallback<Object> callback = new RecordingCallback<>();
+        List<Object> failed = SugarRecord.saveInTx(objects, 100, callback);
+
+        assertEquals(1, failed.size());
+        assertSame(invalid, failed.get(0));
+        assertEquals(failed, callback.failed);
+        assertEquals(3, callback.processed.size());
+        assertEquals(Integer.valueOf(100), callback.processed.get(0));
+        assertEquals(Integer.valueOf(200), callback.processed.get(1));
+        assertEquals(Integer.valueOf(250), callback.processed.get(2));
+        assertEquals(249L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test
+    public void testUpdateInChunks() {
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            records.add(new TestRecord().setName("record " + i));
+        }
+        SugarRecord.saveInTx(records);
+
+        for (TestRecord record : records) {
+            record.setName("updated");
+        }
+        RecordingCallback<TestRecord> callback = new RecordingCallback<>();
+        assertTrue(SugarRecord.updateInTx(records, 60, callback).isEmpty());
+
+        assertEquals(5, callback.processed.size());
+        assertEquals(250L, SugarRecord.count(TestRecord.class));
+        for (TestRecord record : SugarRecord.listAll(TestRecord.class)) {
+            assertEquals("updated", record.getName());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkSize() {
+        SugarRecord.saveInTx(new ArrayList<TestRecord>(), 0);
+    }
+}
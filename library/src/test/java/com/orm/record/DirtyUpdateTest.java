@@ -0,0 +1,87 @@
+package com.orm.record;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.ByteArrayExtendedModel;
+import com.orm.model.SimpleModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class DirtyUpdateTest {
+
+    private SimpleModel saveAndLoad() {
+        SimpleModel model = new SimpleModel();
+        model.setStr("first");
+        model.setInteger(1);
+        SugarRecord.save(model);
+        SugarRecord.save(new SimpleModel());
+        return SugarRecord.findById(SimpleModel.class, model.getId());
+    }
+
+    @Test
+    public void testUpdateWritesChangedColumnsOnly() {
+        SimpleModel model = saveAndLoad();
+        SugarRecord.executeQuery("UPDATE SIMPLE_MODEL SET BOOL = 1 WHERE ID = ?", String.valueOf(model.getId()));
+
+        model.setStr("second");
+        assertEquals(1L, model.update());
+
+        SimpleModel updated = SugarRecord.findById(SimpleModel.class, model.getId());
+        assertEquals("second", updated.getStr());
+        assertTrue(updated.isBool());
+        assertEquals(1, updated.getInteger());
+        assertNull(SugarRecord.findById(SimpleModel.class, 2L).getStr());
+    }
+
+    @Test
+    public void testUnchangedUpdateRunsNoStatement() {
+        SimpleModel model = saveAndLoad();
+        SugarRecord.executeQuery("UPDATE SIMPLE_MODEL SET STR = 'changed' WHERE ID = ?", String.valueOf(model.getId()));
+
+        assertEquals(1L, model.update());
+        assertEquals("changed", SugarRecord.findById(SimpleModel.class, model.getId()).getStr());
+    }
+
+    @Test
+    public void testSnapshotFollowsWrites() {
+        SimpleModel model = saveAndLoad();
+        model.setBool(true);
+        model.update();
+        model.setInteger(2);
+        model.save();
+
+        SugarRecord.executeQuery("UPDATE SIMPLE_MODEL SET BOOL = 0 WHERE ID = ?", String.valueOf(model.getId()));
+        model.setStr("third");
+        SugarRecord.updateInTx(model);
+
+        SimpleModel updated = SugarRecord.findById(SimpleModel.class, model.getId());
+        assertEquals("third", updated.getStr());
+        assertEquals(2, updated.getInteger());
+        assertFalse(updated.isBool());
+        assertEquals(2L, SugarRecord.count(SimpleModel.class));
+    }
+
+    @Test
+    public void testBlobChangedInPlaceIsWritten() {
+        SugarRecord.save(new ByteArrayExtendedModel(new byte[] { 1, 2 }));
+        ByteArrayExtendedModel model = SugarRecord.findById(ByteArrayExtendedModel.class, 1L);
+
+        model.getByteArray()[0] = 3;
+        model.update();
+        model.getByteArray()[1] = 4;
+        model.update();
+
+        assertArrayEquals(new byte[] { 3, 4 }, SugarRecord.findById(ByteArrayExtendedModel.class, 1L).getByteArray());
+    }
+}
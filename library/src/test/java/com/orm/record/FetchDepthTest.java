@@ -0,0 +1,100 @@
+package com.orm.record;
+
+import com.orm.SugarApp;
+import com.orm.model.CategoryModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.save;
+import static com.orm.SugarRecord.saveGraph;
+import static com.orm.SugarRecord.update;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class FetchDepthTest {
+
+    @Test
+    public void cycleEndsAtInflatedEntity() {
+        CategoryModel first = new CategoryModel("first", null);
+        save(first);
+        CategoryModel second = new CategoryModel("second", first);
+        save(second);
+        first.setParent(second);
+        save(first);
+
+        CategoryModel found = findById(CategoryModel.class, first.getId());
+
+        assertEquals("second", found.getParent().getName());
+        assertSame(found, found.getParent().getParent());
+    }
+
+    @Test
+    public void relationsPastMaxDepthAreStubs() {
+        CategoryModel root = new CategoryModel("root", null);
+        save(root);
+        CategoryModel child = new CategoryModel("child", root);
+        save(child);
+        save(new CategoryModel("leaf", child));
+
+        CategoryModel leaf = Select.from(CategoryModel.class)
+                .where(Condition.prop("NAME").eq("leaf"))
+                .maxDepth(1)
+                .first();
+
+        assertEquals("child", leaf.getParent().getName());
+        CategoryModel stub = leaf.getParent().getParent();
+        assertEquals(root.getId(), stub.getId());
+        assertNull(stub.getName());
+    }
+
+    @Test
+    public void relationPastFetchDepthIsStub() {
+        CategoryModel root = new CategoryModel("root", null);
+        save(root);
+        CategoryModel child = new CategoryModel("child", null);
+        child.setRelated(root);
+        save(child);
+        CategoryModel leaf = new CategoryModel("leaf", null);
+        leaf.setRelated(child);
+        save(leaf);
+
+        CategoryModel found = findById(CategoryModel.class, leaf.getId());
+
+        assertEquals("child", found.getRelated().getName());
+        assertEquals(root.getId(), found.getRelated().getRelated().getId());
+        assertNull(found.getRelated().getRelated().getName());
+    }
+
+    @Test
+    public void savingStubsLeavesTheirRows() {
+        CategoryModel root = new CategoryModel("root", null);
+        save(root);
+        CategoryModel child = new CategoryModel("child", root);
+        save(child);
+        save(new CategoryModel("leaf", child));
+
+        CategoryModel leaf = Select.from(CategoryModel.class)
+                .where(Condition.prop("NAME").eq("leaf"))
+                .maxDepth(1)
+                .first();
+        leaf.setName("renamed");
+        saveGraph(leaf);
+
+        CategoryModel stub = leaf.getParent().getParent();
+        assertEquals(root.getId().longValue(), save(stub));
+        assertEquals(root.getId().longValue(), update(stub));
+
+        assertEquals("renamed", findById(CategoryModel.class, leaf.getId()).getName());
+        assertEquals("child", findById(CategoryModel.class, child.getId()).getName());
+        assertEquals("root", findById(CategoryModel.class, root.getId()).getName());
+    }
+}
@@ -0,0 +1,79 @@
+package com.orm.record;
+
+import com.orm.Ref;
+import com.orm.SugarApp;
+import com.orm.annotation.FetchType;
+import com.orm.model.SimpleExtendedModel;
+import com.orm.model.lazy.LazyItemModel;
+import com.orm.model.lazy.LazyOwnerModel;
+import com.orm.model.onetomany.OneToManyModel;
+import com.orm.model.onetomany.OneToManyRelationModel;
+import com.orm.query.Select;
+import com.orm.util.LazyList;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class LazyFetchTest {
+
+    @Test
+    public void lazyListIsReadOnFirstAccess() {
+        LazyOwnerModel owner = new LazyOwnerModel();
+        save(owner);
+        save(new LazyItemModel(owner));
+        save(new LazyItemModel(owner));
+
+        LazyOwnerModel found = findById(LazyOwnerModel.class, owner.getId());
+        LazyList<LazyItemModel> items = (LazyList<LazyItemModel>) found.getItems();
+        assertFalse(items.isLoaded());
+
+        assertEquals(2, items.size());
+        assertTrue(items.isLoaded());
+        assertSame(found, items.get(0).getOwner());
+    }
+
+    @Test
+    public void fetchTypeOfQueryOverridesAnnotation() {
+        OneToManyModel model = new OneToManyModel(1L);
+        save(model);
+        save(new OneToManyRelationModel(1L, model));
+        save(new LazyOwnerModel());
+
+        OneToManyModel lazy = Select.from(OneToManyModel.class).fetch(FetchType.LAZY).first();
+        assertFalse(((LazyList<?>) lazy.getModels()).isLoaded());
+        assertEquals(1, lazy.getModels().size());
+
+        LazyOwnerModel eager = Select.from(LazyOwnerModel.class).fetch(FetchType.EAGER).first();
+        assertFalse(eager.getItems() instanceof LazyList);
+        assertTrue(eager.getItems().isEmpty());
+    }
+
+    @Test
+    public void refIsResolvedOnFirstGet() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new LazyOwnerModel(Ref.to(simple)));
+        save(new LazyOwnerModel());
+
+        LazyOwnerModel found = findById(LazyOwnerModel.class, 1L);
+        Ref<SimpleExtendedModel> ref = found.getSimple();
+        assertFalse(ref.isLoaded());
+        assertEquals(simple.getId(), ref.getId());
+        assertEquals(simple.getId(), ref.get().getId());
+        assertTrue(ref.isLoaded());
+
+        assertNull(findById(LazyOwnerModel.class, 2L).getSimple());
+    }
+}
@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.listAll;
 import static com.orm.SugarRecord.save;
 
 /**
@@ -135,4 +136,30 @@ public class OneToManyTest {
 
         Assert.assertNull(result.getModels());
     }
+
+    @Test
+    public void shouldPrefetchListsOfAllResults() {
+        for (long i = 1; i <= 3; i++) {
+            save(new OneToManyModel(i));
+        }
+        long relationId = 1;
+        for (long i = 1; i <= 2; i++) {
+            OneToManyModel owner = new OneToManyModel(i);
+            for (int j = 0; j < i * 2; j++) {
+                save(new OneToManyRelationModel(relationId++, owner));
+            }
+        }
+
+        List<OneToManyModel> results = listAll(OneToManyModel.class, "ID");
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(2, results.get(0).getModels().size());
+        Assert.assertEquals(4, results.get(1).getModels().size());
+        Assert.assertTrue(results.get(2).getModels().isEmpty());
+        for (OneToManyModel result : results) {
+            for (OneToManyRelationModel relation : result.getModels()) {
+                Assert.assertSame(result, relation.getModel());
+            }
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package com.orm.record;
+
+import com.orm.SugarApp;
+import com.orm.SugarSession;
+import com.orm.model.CategoryModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Iterator;
+
+import static com.orm.SugarContext.getSugarContext;
+import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class ReadOnlyQueryTest {
+
+    @Test
+    public void readOnlyResultsAreNotTracked() {
+        CategoryModel parent = new CategoryModel("parent", null);
+        save(parent);
+        save(new CategoryModel("child", parent));
+
+        CategoryModel child = Select.from(CategoryModel.class)
+                .where(Condition.prop("name").eq("child")).readOnly().first();
+
+        assertEquals("parent", child.getParent().getName());
+        assertFalse(getSugarContext().getEntitiesMap().containsKey(child));
+        assertFalse(getSugarContext().getEntitiesMap().containsKey(child.getParent()));
+        assertFalse(getSugarContext().getSnapshots().containsKey(child));
+
+        CategoryModel tracked = Select.from(CategoryModel.class)
+                .where(Condition.prop("name").eq("child")).first();
+        assertTrue(getSugarContext().getEntitiesMap().containsKey(tracked));
+        assertTrue(getSugarContext().getSnapshots().containsKey(tracked));
+    }
+
+    @Test
+    public void readOnlyIteratorResultsAreNotTracked() {
+        CategoryModel first = new CategoryModel("first", null);
+        save(first);
+        save(new CategoryModel("second", first));
+
+        Iterator<CategoryModel> iterator = Select.from(CategoryModel.class).orderBy("id").readOnly().iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            CategoryModel category = iterator.next();
+            assertFalse(getSugarContext().getEntitiesMap().containsKey(category));
+            count++;
+        }
+        assertEquals(2, count);
+
+        CategoryModel second = Select.from(CategoryModel.class)
+                .where(Condition.prop("name").eq("second")).readOnly().iterator().next();
+        assertEquals("first", second.getParent().getName());
+        assertFalse(getSugarContext().getEntitiesMap().containsKey(second.getParent()));
+        assertFalse(getSugarContext().getSnapshots().containsKey(second.getParent()));
+    }
+
+    @Test
+    public void readOnlyResultsAreNotHeldBySession() {
+        save(new CategoryModel("category", null));
+
+        SugarSession session = SugarSession.open();
+        try {
+            CategoryModel readOnly = Select.from(CategoryModel.class).readOnly().first();
+            assertFalse(session.contains(readOnly));
+
+            CategoryModel held = findById(CategoryModel.class, readOnly.getId());
+            assertTrue(session.contains(held));
+            assertNotSame(held, Select.from(CategoryModel.class).readOnly().first());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void readOnlyEntityCanBeSaved() {
+        save(new CategoryModel("before", null));
+
+        CategoryModel category = Select.from(CategoryModel.class).readOnly().first();
+        category.setName("after");
+        save(category);
+
+        assertEquals(1, Select.from(CategoryModel.class).count());
+        assertEquals("after", findById(CategoryModel.class, category.getId()).getName());
+    }
+}
@@ -16,6 +16,8 @@ import static com.orm.SugarRecord.count;
 import static com.orm.SugarRecord.listAll;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
@@ -121,4 +123,25 @@ public final class RelationshipAnnotatedTests {
             assertEquals(model.getId(), model.getSimple().getId());
         }
     }
+
+    @Test
+    public void listAllSharesRelatedInstancesTest() {
+        SimpleAnnotatedModel first = new SimpleAnnotatedModel();
+        SimpleAnnotatedModel second = new SimpleAnnotatedModel();
+        save(first);
+        save(second);
+        for (int i = 0; i < 10; i++) {
+            save(new RelationshipAnnotatedModel(i % 2 == 0 ? first : second));
+        }
+        save(new RelationshipAnnotatedModel(null));
+
+        List<RelationshipAnnotatedModel> models = listAll(RelationshipAnnotatedModel.class);
+        assertEquals(11, models.size());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 0 ? first.getId() : second.getId(), models.get(i).getSimple().getId());
+            assertSame(models.get(i % 2).getSimple(), models.get(i).getSimple());
+        }
+        assertNull(models.get(10).getSimple());
+    }
 }
@@ -0,0 +1,103 @@
+package com.orm.record;
+
+import com.orm.SugarApp;
+import com.orm.SugarRecord;
+import com.orm.model.NestedExtendedModel;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.SimpleExtendedModel;
+import com.orm.model.foreignnull.OriginRecord;
+import com.orm.model.onetomany.OneToManyModel;
+import com.orm.model.onetomany.OneToManyRelationModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SaveGraphTest {
+
+    @Test
+    public void testSaveNestedGraph() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        RelationshipExtendedModel relationship = new RelationshipExtendedModel(simple);
+        NestedExtendedModel nested = new NestedExtendedModel(relationship);
+
+        long id = SugarRecord.saveGraph(nested);
+
+        assertEquals(1L, id);
+        assertNotNull(simple.getId());
+        assertNotNull(relationship.getId());
+        NestedExtendedModel loaded = SugarRecord.findById(NestedExtendedModel.class, id);
+        assertEquals(relationship.getId(), loaded.getNested().getId());
+        assertEquals(simple.getId(), loaded.getNested().getSimple().getId());
+    }
+
+    @Test
+    public void testSaveOneToManyGraph() {
+        List<OneToManyModel> owners = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            OneToManyModel owner = new OneToManyModel();
+            owner.setModels(Arrays.asList(new OneToManyRelationModel(), new OneToManyRelationModel()));
+            owners.add(owner);
+        }
+
+        assertTrue(SugarRecord.saveGraphInTx(owners).isEmpty());
+
+        assertEquals(10L, SugarRecord.count(OneToManyModel.class));
+        assertEquals(20L, SugarRecord.count(OneToManyRelationModel.class));
+        for (OneToManyModel owner : owners) {
+            assertSame(owner, owner.getModels().get(0).getModel());
+            assertEquals(2, SugarRecord.findById(OneToManyModel.class, owner.getId()).getModels().size());
+        }
+    }
+
+    @Test
+    public void testCycleIsRejected() throws Exception {
+        OriginRecord first = new OriginRecord();
+        OriginRecord second = new OriginRecord(null, first);
+        Field origin = OriginRecord.class.getDeclaredField("origin");
+        origin.setAccessible(true);
+        origin.set(first, second);
+
+        try {
+            SugarRecord.saveGraph(first);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(0L, SugarRecord.count(OriginRecord.class));
+        }
+    }
+
+    @Test
+    public void testCycleLeavesBackReferencesUnset() throws Exception {
+        OriginRecord first = new OriginRecord();
+        OriginRecord second = new OriginRecord(null, first);
+        Field origin = OriginRecord.class.getDeclaredField("origin");
+        origin.setAccessible(true);
+        origin.set(first, second);
+        OneToManyRelationModel element = new OneToManyRelationModel();
+        OneToManyModel owner = new OneToManyModel();
+        owner.setModels(Arrays.asList(element));
+
+        try {
+            SugarRecord.saveGraphInTx(Arrays.asList(owner, first));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertNull(element.getModel());
+            assertEquals(0L, SugarRecord.count(OneToManyModel.class));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.orm.record;
 import com.orm.SugarApp;
 import com.orm.helper.NamingHelper;
 import com.orm.model.SimpleExtendedModel;
+import com.orm.model.SoftDeleteModel;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -166,6 +167,19 @@ public final class SimpleExtendedModelTests {
         assertEquals(0L, count(SimpleExtendedModel.class));
     }
 
+    @Test
+    public void deleteInTransactionOverriddenDeleteTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        SoftDeleteModel soft = new SoftDeleteModel();
+        save(soft);
+
+        assertEquals(2, deleteInTx(simple, soft));
+        assertEquals(0L, count(SimpleExtendedModel.class));
+        assertEquals(1L, count(SoftDeleteModel.class));
+        assertTrue(findById(SoftDeleteModel.class, soft.getId()).isDeleted());
+    }
+
     @Test
     public void deleteInTransactionManyTest() {
         long elementNumber = 100;
@@ -183,6 +197,21 @@ public final class SimpleExtendedModelTests {
         assertEquals(0L, count(SimpleExtendedModel.class));
     }
 
+    @Test
+    public void deleteInTransactionChunkedTest() {
+        List<SimpleExtendedModel> models = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            models.add(new SimpleExtendedModel());
+        }
+        saveInTx(models);
+        save(new SimpleExtendedModel());
+
+        models.add(models.get(0));
+        models.add(new SimpleExtendedModel());
+        assertEquals(2500, deleteInTx(models));
+        assertEquals(1L, count(SimpleExtendedModel.class));
+    }
+
     @Test
     public void saveInTransactionTest() {
         saveInTx(new SimpleExtendedModel(), new SimpleExtendedModel());
@@ -0,0 +1,69 @@
+package com.orm.util;
+
+import com.orm.SugarApp;
+import com.orm.model.MultiColumnUniqueModel;
+import com.orm.model.RelationshipAnnotatedModel;
+import com.orm.model.StringFieldExtendedModelAnnotatedColumn;
+import com.orm.model.TestRecord;
+import com.orm.model.onetomany.OneToManyModel;
+import com.orm.model.onetomany.OneToManyRelationModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class EntityDescriptorTest {
+
+    @Test
+    public void testDescriptorIsCached() {
+        assertSame(EntityDescriptor.of(TestRecord.class), EntityDescriptor.of(TestRecord.class));
+        assertEquals(EntityDescriptor.of(TestRecord.class).getFields(), ReflectionUtil.getTableFields(TestRecord.class));
+    }
+
+    @Test
+    public void testColumns() {
+        EntityDescriptor descriptor = EntityDescriptor.of(StringFieldExtendedModelAnnotatedColumn.class);
+
+        assertEquals("STRING_FIELD_EXTENDED_MODEL_ANNOTATED_COLUMN", descriptor.getTableName());
+        assertEquals(1, descriptor.getColumns().size());
+        EntityDescriptor.Property column = descriptor.getColumns().get(0);
+        assertEquals("anyName", column.getColumnName());
+        assertEquals(EntityDescriptor.Codec.STRING, column.getCodec());
+        assertEquals("id", descriptor.getIdProperty().getName());
+        assertTrue(descriptor.getIdProperty().isIdColumn());
+    }
+
+    @Test
+    public void testUniqueKey() {
+        EntityDescriptor descriptor = EntityDescriptor.of(MultiColumnUniqueModel.class);
+
+        assertTrue(descriptor.hasUniqueConstraint());
+        assertEquals(Arrays.asList("A", "B"), descriptor.getUniqueKey());
+        assertEquals(EntityDescriptor.Codec.INTEGER, descriptor.getColumns().get(0).getCodec());
+    }
+
+    @Test
+    public void testRelations() {
+        EntityDescriptor annotated = EntityDescriptor.of(RelationshipAnnotatedModel.class);
+        assertEquals(1, annotated.getRelations().size());
+        assertEquals(EntityDescriptor.Codec.TABLE_ENTITY, annotated.getRelations().get(0).getCodec());
+        assertEquals("id", annotated.getRelations().get(0).getRelationIdField().getName());
+
+        EntityDescriptor oneToMany = EntityDescriptor.of(OneToManyModel.class);
+        assertTrue(oneToMany.getColumns().isEmpty());
+        EntityDescriptor.Property models = oneToMany.getOneToManyProperties().get(0);
+        assertEquals("model", models.getTargetField());
+        assertSame(OneToManyRelationModel.class, models.getElementType());
+        assertEquals(EntityDescriptor.Codec.RECORD_ENTITY,
+                EntityDescriptor.of(OneToManyRelationModel.class).getRelations().get(0).getCodec());
+    }
+}
@@ -0,0 +1,37 @@
+package com.orm.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public final class LongMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        LongMap<String> map = new LongMap<>();
+        for (long key = -500; key < 500; key++) {
+            assertNull(map.put(key * 1024, "value " + key));
+        }
+
+        assertEquals(1000, map.size());
+        for (long key = -500; key < 500; key++) {
+            assertEquals("value " + key, map.get(key * 1024));
+        }
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void testReplace() {
+        LongMap<String> map = new LongMap<>(1);
+        map.put(Long.MAX_VALUE, "first");
+
+        assertEquals("first", map.put(Long.MAX_VALUE, "second"));
+        assertEquals("second", map.get(Long.MAX_VALUE));
+        assertTrue(map.containsKey(Long.MAX_VALUE));
+        assertEquals(1, map.size());
+    }
+}
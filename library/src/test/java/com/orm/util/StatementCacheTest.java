@@ -0,0 +1,140 @@
+package com.orm.util;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.orm.SugarApp;
+import com.orm.SugarContext;
+import com.orm.SugarRecord;
+import com.orm.model.IntUniqueModel;
+import com.orm.model.MultiColumnUniqueModel;
+import com.orm.model.NestedExtendedModel;
+import com.orm.model.SimpleAnnotatedModel;
+import com.orm.model.StringFieldAnnotatedNoIdModel;
+import com.orm.model.TestRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18, application = SugarApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class StatementCacheTest {
+
+    private SQLiteDatabase getDatabase() {
+        return SugarContext.getSugarContext().getSugarDb().getDB();
+    }
+
+    @Test
+    public void testStatementsAreReused() {
+        EntityStatements statements = StatementCache.getStatements(getDatabase(), TestRecord.class);
+        assertSame(statements, StatementCache.getStatements(getDatabase(), TestRecord.class));
+        assertNotSame(statements, StatementCache.getStatements(getDatabase(), SimpleAnnotatedModel.class));
+    }
+
+    @Test
+    public void testClearCache() {
+        EntityStatements statements = StatementCache.getStatements(getDatabase(), TestRecord.class);
+        StatementCache.clearCache();
+        assertNotSame(statements, StatementCache.getStatements(getDatabase(), TestRecord.class));
+    }
+
+    @Test
+    public void testIdField() {
+        assertNotNull(StatementCache.getStatements(getDatabase(), TestRecord.class).getIdField());
+        assertNull(StatementCache.getStatements(getDatabase(), StringFieldAnnotatedNoIdModel.class).getIdField());
+    }
+
+    @Test
+    public void testUniqueConstraint() {
+        assertFalse(StatementCache.getStatements(getDatabase(), TestRecord.class).hasUniqueConstraint());
+        assertTrue(StatementCache.getStatements(getDatabase(), MultiColumnUniqueModel.class).hasUniqueConstraint());
+    }
+
+    @Test
+    public void testBatchSize() {
+        assertEquals(499, StatementCache.getStatements(getDatabase(), TestRecord.class).getBatchSize(false));
+        assertEquals(0, StatementCache.getStatements(getDatabase(), MultiColumnUniqueModel.class).getBatchSize(true));
+        assertEquals(0, StatementCache.getStatements(getDatabase(), NestedExtendedModel.class).getBatchSize(false));
+        assertTrue(StatementCache.getStatements(getDatabase(), NestedExtendedModel.class).getBatchSize(true) > 0);
+    }
+
+    @Test
+    public void testSaveInTxWithMultiRowInserts() {
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            records.add(new TestRecord().setName("record " + i));
+        }
+        TestRecord saved = new TestRecord().setName("saved");
+        SugarRecord.save(saved);
+        records.add(600, saved);
+        records.add(records.get(0));
+
+        SugarRecord.saveInTx(records);
+
+        assertEquals(1201L, SugarRecord.count(TestRecord.class));
+        assertEquals(Long.valueOf(1L), saved.getId());
+        for (int i = 0; i < 1200; i++) {
+            TestRecord record = records.get(i < 600 ? i : i + 1);
+            assertEquals(Long.valueOf(i + 2), record.getId());
+            assertEquals("record " + i, SugarRecord.findById(TestRecord.class, record.getId()).getName());
+        }
+    }
+
+    @Test
+    public void testUniqueKey() {
+        assertFalse(StatementCache.getStatements(getDatabase(), TestRecord.class).hasUniqueKey());
+        assertTrue(StatementCache.getStatements(getDatabase(), MultiColumnUniqueModel.class).hasUniqueKey());
+        assertTrue(StatementCache.getStatements(getDatabase(), IntUniqueModel.class).hasUniqueKey());
+    }
+
+    @Test
+    public void testSaveOnUniqueKey() {
+        EntityStatements statements = StatementCache.getStatements(getDatabase(), MultiColumnUniqueModel.class);
+        long first = SugarRecord.save(new MultiColumnUniqueModel(1, 2));
+        SugarRecord.save(new MultiColumnUniqueModel(1, 3));
+        long second = SugarRecord.save(new MultiColumnUniqueModel(1, 2));
+
+        assertEquals(2L, SugarRecord.count(MultiColumnUniqueModel.class));
+        if (statements.supportsUpsert()) {
+            assertEquals(first, second);
+        }
+
+        SugarRecord.update(new IntUniqueModel(7));
+        SugarRecord.update(new IntUniqueModel(7));
+        assertEquals(1L, SugarRecord.count(IntUniqueModel.class));
+    }
+
+    @Test
+    public void testSQLiteVersion() {
+        assertEquals(3024000, SQLiteVersion.parse("3.24.0"));
+        assertEquals(3008010, SQLiteVersion.parse("3.8.10.2"));
+        assertTrue(SQLiteVersion.get(getDatabase()) > 3000000);
+    }
+
+    @Test
+    public void testSaveAndDeleteWithCachedStatements() {
+        TestRecord record = new TestRecord().setName("first");
+        long id = SugarRecord.save(record);
+        assertEquals(1L, id);
+
+        record.setName("second");
+        assertEquals(id, SugarRecord.save(record));
+        assertEquals(1L, SugarRecord.count(TestRecord.class));
+        assertEquals("second", SugarRecord.findById(TestRecord.class, id).getName());
+
+        assertTrue(record.delete());
+        assertEquals(0L, SugarRecord.count(TestRecord.class));
+    }
+}